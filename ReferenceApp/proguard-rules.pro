@@ -19,3 +19,20 @@
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
+
+# Strip debug and info logging from release builds. AppLog already skips these when
+# BuildConfig.DEBUG is false; removing the calls also drops their argument setup (e.g. boxing).
+# Only AppLog is stripped: android.util.Log is used directly where output is wanted in release
+# builds, such as the playback metrics exporters.
+-assumenosideeffects class com.truex.referenceapp.AppLog {
+    public static void d(...);
+    public static void i(...);
+}
+
+# The true[X] Ad Renderer drives its ads from JavaScript in a WebView and reflects on its own
+# classes, keep it as is.
+-keep class com.truex.adrenderer.** { *; }
+-keepclassmembers class * {
+    @android.webkit.JavascriptInterface <methods>;
+}
+-dontwarn com.truex.adrenderer.**
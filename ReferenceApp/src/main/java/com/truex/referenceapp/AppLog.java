@@ -0,0 +1,129 @@
+package com.truex.referenceapp;
+
+import android.util.Log;
+
+/**
+ * Logging facade used by the ad and player code.
+ *
+ * Messages take "{}" placeholders that are only filled in when the message is actually logged, so
+ * call sites do not build strings up front. Debug and info logging only happens in debug builds:
+ * DEBUG_ENABLED is a compile time constant, so R8 removes those branches in release builds, and
+ * proguard-rules.pro strips the calls themselves. Warnings and errors are always logged.
+ *
+ * If the last argument is a Throwable without a placeholder of its own, it is logged with its
+ * stack trace, as with the Log methods taking a Throwable.
+ */
+public final class AppLog {
+    public static final boolean DEBUG_ENABLED = BuildConfig.DEBUG;
+
+    private AppLog() {
+    }
+
+    public static boolean isLoggable(int level) {
+        return DEBUG_ENABLED || level >= Log.WARN;
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG_ENABLED) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void d(String tag, String format, long arg) {
+        if (DEBUG_ENABLED) {
+            Log.d(tag, format(format, arg, null, null, 1));
+        }
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (DEBUG_ENABLED) {
+            log(Log.DEBUG, tag, format, arg, null, null, 1);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (DEBUG_ENABLED) {
+            log(Log.DEBUG, tag, format, arg1, arg2, null, 2);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (DEBUG_ENABLED) {
+            log(Log.DEBUG, tag, format, arg1, arg2, arg3, 3);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (DEBUG_ENABLED) {
+            Log.i(tag, message);
+        }
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (DEBUG_ENABLED) {
+            log(Log.INFO, tag, format, arg, null, null, 1);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        Log.w(tag, message);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        log(Log.WARN, tag, format, arg, null, null, 1);
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        log(Log.WARN, tag, format, arg1, arg2, null, 2);
+    }
+
+    public static void e(String tag, String message) {
+        Log.e(tag, message);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        log(Log.ERROR, tag, format, arg, null, null, 1);
+    }
+
+    public static void e(String tag, String format, Object arg1, Object arg2) {
+        log(Log.ERROR, tag, format, arg1, arg2, null, 2);
+    }
+
+    private static void log(int level, String tag, String format, Object arg1, Object arg2, Object arg3, int argCount) {
+        Object last = argCount == 3 ? arg3 : argCount == 2 ? arg2 : arg1;
+        Throwable tr = null;
+        if (last instanceof Throwable && countPlaceholders(format) < argCount) {
+            tr = (Throwable) last;
+            argCount--;
+        }
+        String message = format(format, arg1, arg2, arg3, argCount);
+        if (tr != null) {
+            message = message + '\n' + Log.getStackTraceString(tr);
+        }
+        Log.println(level, tag, message);
+    }
+
+    private static int countPlaceholders(String format) {
+        int count = 0;
+        for (int i = format.indexOf("{}"); i >= 0; i = format.indexOf("{}", i + 2)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static String format(String format, Object arg1, Object arg2, Object arg3, int argCount) {
+        StringBuilder builder = new StringBuilder(format.length() + 32);
+        int start = 0;
+        for (int argIndex = 0; argIndex < argCount; argIndex++) {
+            int placeholder = format.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            builder.append(format, start, placeholder);
+            builder.append(argIndex == 0 ? arg1 : argIndex == 1 ? arg2 : arg3);
+            start = placeholder + 2;
+        }
+        builder.append(format, start, format.length());
+        return builder.toString();
+    }
+}
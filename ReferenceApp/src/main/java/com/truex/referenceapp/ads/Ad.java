@@ -1,7 +1,13 @@
 package com.truex.referenceapp.ads;
 
+import com.truex.referenceapp.AppLog;
+
+import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Represents an individual ad within an ad break.
  *
@@ -14,6 +20,8 @@ import org.json.JSONObject;
  *
  * 2. IDVx interactive ads (adSystem = "IDVx")
  *    - Uses adParameters field containing JSON configuration
+ *    - adParameters is kept as compact UTF-8 JSON and only parsed when the ad is shown. Loaded from
+ *      the schedule cache it is a slice of the memory-mapped cache file rather than a heap copy
  *    - Starts automatically, plays inline with other ads
  *    - Never earns credit, always continues to next ad
  *    - mediaFile is placeholder video (paused during interaction)
@@ -23,19 +31,22 @@ import org.json.JSONObject;
  *    - Standard non-interactive video ad
  */
 public class Ad {
+    private static final String CLASSTAG = Ad.class.getSimpleName();
+
     public String adSystem;         // "trueX", "IDVx", or other (e.g., "GDFP")
     public String mediaFile;        // Video URL for ad playback
     public String description;      // VAST config URL for TrueX ads
-    public JSONObject adParameters; // JSON configuration for IDVx ads
     public int duration;            // Ad duration in seconds
     public String adId;             // Unique ad identifier
     public AdType adType;           // TRUEX, IDVX, or REGULAR
 
-    public Ad(String adSystem, String mediaFile, String description, JSONObject adParameters, int duration, String adId) {
+    private final ByteBuffer adParametersJson; // UTF-8 JSON configuration for IDVx ads, never mutated
+
+    public Ad(String adSystem, String mediaFile, String description, ByteBuffer adParametersJson, int duration, String adId) {
         this.adSystem = adSystem;
         this.mediaFile = mediaFile;
         this.description = description;
-        this.adParameters = adParameters;
+        this.adParametersJson = adParametersJson;
         this.duration = duration;
         this.adId = adId;
         this.adType = determineAdType(adSystem);
@@ -67,6 +78,31 @@ public class Ad {
         return description;
     }
 
+    ByteBuffer getAdParametersJson() {
+        return adParametersJson != null ? adParametersJson.duplicate() : null;
+    }
+
+    public boolean hasAdParameters() {
+        return adParametersJson != null;
+    }
+
+    /**
+     * Get the JSON configuration for IDVx ads, parsed from the raw JSON on every call.
+     * Each renderer gets its own object, as the renderer may modify it, and nothing outlives the ad.
+     * For ads without adParameters, returns null
+     */
+    public JSONObject getAdParameters() {
+        if (adParametersJson == null) {
+            return null;
+        }
+        try {
+            return new JSONObject(StandardCharsets.UTF_8.decode(adParametersJson.duplicate()).toString());
+        } catch (JSONException e) {
+            AppLog.e(CLASSTAG, "Error parsing adParameters for ad {}", adId, e);
+            return null;
+        }
+    }
+
     /**
      * Get the video URL for playback
      * This is used for the fallback video or regular ads
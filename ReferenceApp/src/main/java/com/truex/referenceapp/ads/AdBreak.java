@@ -15,6 +15,9 @@ public class AdBreak {
     private boolean completed = false;
     private int currentAdIndex = 0;
 
+    // Offsets of the ads within the pod, built on first use
+    private AdPodTimeline podTimeline;
+
     public AdBreak(String breakId, int timeOffsetMs, List<Ad> ads) {
         this.breakId = breakId;
         this.timeOffsetMs = timeOffsetMs;
@@ -49,6 +52,13 @@ public class AdBreak {
         this.completed = completed;
     }
 
+    public AdPodTimeline getPodTimeline() {
+        if (podTimeline == null) {
+            podTimeline = new AdPodTimeline(ads);
+        }
+        return podTimeline;
+    }
+
     public int getCurrentAdIndex() {
         return currentAdIndex;
     }
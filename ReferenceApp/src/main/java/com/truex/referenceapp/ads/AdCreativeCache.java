@@ -0,0 +1,54 @@
+package com.truex.referenceapp.ads;
+
+import android.content.Context;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.cache.Cache;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import java.io.File;
+
+/**
+ * App wide disk cache for ad creatives.
+ *
+ * Ad pods reuse the same creatives over and over (e.g. the interactive ad placeholder video), so
+ * ad media is read through a SimpleCache with least-recently-used eviction. SimpleCache only
+ * allows one instance per directory, so the cache is created once and shared.
+ */
+@UnstableApi
+public class AdCreativeCache {
+    private static final String CACHE_DIRECTORY = "ad_creatives";
+
+    // Size cap of the creative cache
+    public static final long MAX_CACHE_BYTES = 100 * 1024 * 1024;
+
+    private static SimpleCache cache;
+
+    private AdCreativeCache() {
+    }
+
+    public static synchronized Cache getCache(Context context) {
+        if (cache == null) {
+            Context appContext = context.getApplicationContext();
+            cache = new SimpleCache(
+                new File(appContext.getCacheDir(), CACHE_DIRECTORY),
+                new LeastRecentlyUsedCacheEvictor(MAX_CACHE_BYTES),
+                new StandaloneDatabaseProvider(appContext));
+        }
+        return cache;
+    }
+
+    /**
+     * Wrap the upstream data source factory so reads are served from, and written to, the cache
+     */
+    public static CacheDataSource.Factory buildDataSourceFactory(Context context, DataSource.Factory upstreamFactory) {
+        return new CacheDataSource.Factory()
+            .setCache(getCache(context))
+            .setUpstreamDataSourceFactory(upstreamFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+    }
+}
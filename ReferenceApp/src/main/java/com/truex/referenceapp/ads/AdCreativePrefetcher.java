@@ -0,0 +1,123 @@
+package com.truex.referenceapp.ads;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheWriter;
+
+import com.truex.referenceapp.AppLog;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pulls the beginning of each creative of an upcoming ad break into the ad creative cache,
+ * so the pod can start playing without waiting on the network.
+ *
+ * Creatives are fetched one at a time on a background thread. A creative that failed to download
+ * is requested again the next time its ad break is prefetched. After release() prefetching is a
+ * no-op.
+ */
+@UnstableApi
+public class AdCreativePrefetcher {
+    private static final String CLASSTAG = AdCreativePrefetcher.class.getSimpleName();
+
+    // How much of each creative to prefetch, and the bitrate used to turn that into bytes
+    public static final long DEFAULT_PREFETCH_DURATION_MS = 5000;
+    public static final long DEFAULT_ASSUMED_BITRATE_BPS = 2_000_000;
+
+    private final CacheDataSource.Factory dataSourceFactory;
+    private final long prefetchLengthBytes;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Added to on the calling thread, failed URLs are removed again on the prefetch thread
+    private final Set<String> requestedUrls = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicLong bytesFetched = new AtomicLong();
+    private volatile CacheWriter activeWriter;
+
+    public AdCreativePrefetcher(CacheDataSource.Factory dataSourceFactory) {
+        this(dataSourceFactory, DEFAULT_PREFETCH_DURATION_MS, DEFAULT_ASSUMED_BITRATE_BPS);
+    }
+
+    /**
+     * @param prefetchDurationMs - how much of the start of each creative to prefetch
+     * @param assumedBitrateBps - creative bitrate used to turn the duration into a byte length
+     */
+    public AdCreativePrefetcher(CacheDataSource.Factory dataSourceFactory, long prefetchDurationMs, long assumedBitrateBps) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.prefetchLengthBytes = prefetchDurationMs * assumedBitrateBps / 8000;
+    }
+
+    /**
+     * Prefetch every creative in the ad break. Creatives that were already requested are skipped.
+     */
+    public void prefetch(AdBreak adBreak) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        for (Ad ad : adBreak.getAds()) {
+            String url = ad.getAdUrl();
+            if (url == null || !requestedUrls.add(url)) {
+                continue;
+            }
+            executor.execute(() -> cacheCreative(url, prefetchLengthBytes));
+        }
+    }
+
+    /**
+     * Total number of bytes downloaded by the prefetcher, not counting bytes already in the cache
+     */
+    public long getBytesFetched() {
+        return bytesFetched.get();
+    }
+
+    /**
+     * Wait until the creatives requested so far have been prefetched, or have failed
+     */
+    void awaitIdle(long timeoutMs) throws InterruptedException, ExecutionException, TimeoutException {
+        executor.submit(() -> { }).get(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        executor.shutdownNow();
+        CacheWriter writer = activeWriter;
+        if (writer != null) {
+            writer.cancel();
+        }
+    }
+
+    private void cacheCreative(String url, long lengthBytes) {
+        DataSpec dataSpec = new DataSpec.Builder()
+            .setUri(Uri.parse(url))
+            .setLength(lengthBytes)
+            .build();
+        AtomicLong newBytes = new AtomicLong();
+        CacheWriter writer = new CacheWriter(dataSourceFactory.createDataSource(), dataSpec, null,
+            (requestLength, bytesCached, newBytesCached) -> newBytes.addAndGet(newBytesCached));
+
+        long startMs = SystemClock.elapsedRealtime();
+        activeWriter = writer;
+        try {
+            writer.cache();
+            AppLog.d(CLASSTAG, "Prefetched {}: {} new bytes in {}ms", url, newBytes.get(),
+                SystemClock.elapsedRealtime() - startMs);
+        } catch (IOException e) {
+            AppLog.w(CLASSTAG, "Error prefetching {}", url, e);
+            // Let the next prefetch of the ad break try again
+            requestedUrls.remove(url);
+        } finally {
+            activeWriter = null;
+            bytesFetched.addAndGet(newBytes.get());
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.truex.referenceapp.ads;
 
 import android.content.Context;
-import android.util.Log;
 import android.view.ViewGroup;
 
 import androidx.annotation.OptIn;
 import androidx.media3.common.MediaItem;
+import androidx.media3.common.Timeline;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
 import androidx.media3.exoplayer.source.ConcatenatingMediaSource2;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import androidx.media3.exoplayer.source.MediaSource;
 
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Manages ad breaks using Client-Side Ad Insertion.
@@ -20,19 +29,39 @@ import java.util.List;
 public class AdManager {
     private static final String CLASSTAG = AdManager.class.getSimpleName();
 
-    // Ad playlist with multiple ad breaks
+    // Ad playlist with multiple ad breaks, sorted by timeOffset
     private List<AdBreak> adPlaylist;
     private AdBreak currentAdBreak;
 
-    // Legacy fields for current ad break playback
-    private List<Ad> ads;
+    // Cue-point index over adPlaylist: cueOffsetsMs[i] is the timeOffset of adPlaylist.get(i).
+    // nextPendingIndex points at the first ad break that has not been completed yet.
+    private long[] cueOffsetsMs;
+    private int nextPendingIndex;
+
+    // Current ad break playback; the position within the pod is tracked by the AdBreak itself
+    private final AdPlaybackStateMachine playbackState = new AdPlaybackStateMachine();
     private MediaSource mediaSource;
-    private int currentAdIndex;
     private AdBreakListener listener;
     private Context context;
     private InfillionAdManager infillionAdManager;
+
+    // Renderer initialized ahead of time for the next Infillion ad
+    private InfillionAdManager prewarmedInfillionAdManager;
+    private Ad prewarmedAd;
     private ViewGroup adViewGroup;
     private DataSource.Factory dataSourceFactory;
+    private AdCreativePrefetcher adCreativePrefetcher;
+
+    // Media sources are built once per ad break from a shared factory and reused when a break is replayed
+    private static final int MAX_CACHED_MEDIA_SOURCES = 4;
+    private MediaSource.Factory adMediaSourceFactory;
+    private final Map<String, MediaSource> adBreakMediaSources =
+        new LinkedHashMap<String, MediaSource>(MAX_CACHED_MEDIA_SOURCES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MediaSource> eldest) {
+                return size() > MAX_CACHED_MEDIA_SOURCES;
+            }
+        };
     private android.os.Handler failsafeHandler;
     private Runnable failsafeRunnable;
 
@@ -51,15 +80,22 @@ public class AdManager {
         void onSkipToContent();
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     public AdManager(Context context, AdBreakListener listener, ViewGroup adViewGroup, DataSource.Factory dataSourceFactory) {
         this.context = context;
         this.listener = listener;
         this.adViewGroup = adViewGroup;
-        this.dataSourceFactory = dataSourceFactory;
-        this.ads = new ArrayList<>();
-        this.currentAdIndex = 0;
+
+        // Ad creatives are read through the disk cache, and the upcoming ad break is prefetched into it
+        CacheDataSource.Factory cacheDataSourceFactory = AdCreativeCache.buildDataSourceFactory(context, dataSourceFactory);
+        this.dataSourceFactory = cacheDataSourceFactory;
+        this.adCreativePrefetcher = new AdCreativePrefetcher(cacheDataSourceFactory);
+        this.adMediaSourceFactory = new DefaultMediaSourceFactory(cacheDataSourceFactory);
+
         this.failsafeHandler = new android.os.Handler();
         this.adPlaylist = new ArrayList<>();
+        this.cueOffsetsMs = new long[0];
+        this.nextPendingIndex = 0;
         this.currentAdBreak = null;
     }
 
@@ -81,13 +117,36 @@ public class AdManager {
             infillionAdManager.onStop();
         }
         // Clean up when stopping to prevent memory leaks
+        cancelFailsafeTimer();
         cleanupInfillionAdManager();
+        cleanupPrewarmedInfillionAdManager();
+        adCreativePrefetcher.release();
+        playbackState.handle(AdPlaybackStateMachine.Event.RESET);
+    }
+
+    public AdPlaybackStateMachine.State getPlaybackState() {
+        return playbackState.getState();
     }
 
     // Set the ad playlist from VMAP data
     public void setAdPlaylist(List<AdBreak> adBreaks) {
-        Log.d(CLASSTAG, "setAdPlaylist: " + adBreaks.size() + " ad breaks");
+        AppLog.d(CLASSTAG, "setAdPlaylist: {} ad breaks", adBreaks.size());
         this.adPlaylist = new ArrayList<>(adBreaks);
+
+        // Build the cue-point index. The sort is stable, so breaks sharing an offset keep their order.
+        Collections.sort(adPlaylist, new Comparator<AdBreak>() {
+            @Override
+            public int compare(AdBreak a, AdBreak b) {
+                return Integer.compare(a.getTimeOffsetMs(), b.getTimeOffsetMs());
+            }
+        });
+        cueOffsetsMs = new long[adPlaylist.size()];
+        for (int i = 0; i < cueOffsetsMs.length; i++) {
+            cueOffsetsMs[i] = adPlaylist.get(i).getTimeOffsetMs();
+        }
+        nextPendingIndex = 0;
+
+        prefetchUpcomingAdBreak(0);
     }
 
     /**
@@ -95,71 +154,197 @@ public class AdManager {
      * Returns the ad break if within TIME_TOLERANCE_MS of its timeOffset and not completed
      */
     public AdBreak getAdBreakAt(long currentTimeMs) {
-        for (AdBreak adBreak : adPlaylist) {
-            long timeDiff = Math.abs(adBreak.getTimeOffsetMs() - currentTimeMs);
-            if (timeDiff <= TIME_TOLERANCE_MS && !adBreak.isCompleted()) {
+        // Skip over breaks that have already played; this keeps the common case O(1)
+        while (nextPendingIndex < cueOffsetsMs.length && adPlaylist.get(nextPendingIndex).isCompleted()) {
+            nextPendingIndex++;
+        }
+
+        // Binary search for the first cue inside the tolerance window, then scan the (tiny) window
+        int index = Math.max(lowerBound(currentTimeMs - TIME_TOLERANCE_MS), nextPendingIndex);
+        long windowEndMs = currentTimeMs + TIME_TOLERANCE_MS;
+        for (; index < cueOffsetsMs.length && cueOffsetsMs[index] <= windowEndMs; index++) {
+            AdBreak adBreak = adPlaylist.get(index);
+            if (!adBreak.isCompleted()) {
                 return adBreak;
             }
         }
         return null;
     }
 
+    /**
+     * Get the ad breaks that have not been started yet with a timeOffset at or after the given time
+     */
+    public List<AdBreak> getUpcomingAdBreaks(long fromTimeMs) {
+        List<AdBreak> upcoming = new ArrayList<>();
+        for (int i = Math.max(lowerBound(fromTimeMs), nextPendingIndex); i < cueOffsetsMs.length; i++) {
+            AdBreak adBreak = adPlaylist.get(i);
+            if (!adBreak.isStarted() && !adBreak.isCompleted()) {
+                upcoming.add(adBreak);
+            }
+        }
+        return upcoming;
+    }
+
+    /**
+     * Returns the index of the first cue point at or after the given time
+     */
+    private int lowerBound(long timeMs) {
+        int low = 0;
+        int high = cueOffsetsMs.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cueOffsetsMs[mid] < timeMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /**
      * Set the current ad break to play
      */
     public void setCurrentAdBreak(AdBreak adBreak) {
-        Log.d(CLASSTAG, "setCurrentAdBreak: " + adBreak.getBreakId());
+        AppLog.d(CLASSTAG, "setCurrentAdBreak: {}", adBreak.getBreakId());
         // Clean up any existing InfillionAdManager before setting new ad break
         cleanupInfillionAdManager();
 
+        cancelFailsafeTimer();
+        playbackState.handle(AdPlaybackStateMachine.Event.RESET);
+        playbackState.handle(AdPlaybackStateMachine.Event.PREPARE);
+
         this.currentAdBreak = adBreak;
-        this.ads = adBreak.getAds();
-        this.currentAdIndex = 0;
-        this.mediaSource = createMediaSource(ads);
+        adBreak.reset();
+        this.mediaSource = getMediaSource(adBreak);
+
+        // Start fetching the interactive ad while the pod's media source prepares
+        prewarmAdBreak(adBreak);
+    }
+
+    /**
+     * Initialize the renderer for the first Infillion ad in the ad break ahead of time, so that
+     * its configuration is already fetched when the pod reaches it.
+     */
+    public void prewarmAdBreak(AdBreak adBreak) {
+        getMediaSource(adBreak);
+        adCreativePrefetcher.prefetch(adBreak);
+        prewarmNextInfillionAd(adBreak.getAds(), 0);
+    }
+
+    /**
+     * Prefetch the creatives of the next ad break that has not been played yet
+     */
+    private void prefetchUpcomingAdBreak(long fromTimeMs) {
+        List<AdBreak> upcoming = getUpcomingAdBreaks(fromTimeMs);
+        if (!upcoming.isEmpty()) {
+            adCreativePrefetcher.prefetch(upcoming.get(0));
+        }
+    }
+
+    private void prewarmNextInfillionAd(List<Ad> ads, int fromIndex) {
+        for (int i = fromIndex; i < ads.size(); i++) {
+            Ad ad = ads.get(i);
+            if (ad.isInfillionAd()) {
+                prewarmInfillionAd(ad);
+                return;
+            }
+        }
+        // Nothing left to pre-warm, drop any renderer prepared for another ad break
+        cleanupPrewarmedInfillionAdManager();
+    }
+
+    private void prewarmInfillionAd(Ad adItem) {
+        if (adItem == prewarmedAd || adViewGroup == null) {
+            return;
+        }
+        AppLog.d(CLASSTAG, "prewarmInfillionAd - adId: {}, type: {}", adItem.adId, adItem.adType);
+        cleanupPrewarmedInfillionAdManager();
+
+        prewarmedAd = adItem;
+        prewarmedInfillionAdManager = createInfillionAdManager();
+        prewarmedInfillionAdManager.prepareAd(adItem.getVastConfigUrl(), adItem.getAdParameters(), adItem.adType);
     }
 
     public void startAdBreak() {
-        Log.d(CLASSTAG, "startAdBreak");
+        AppLog.d(CLASSTAG, "startAdBreak");
         // Clean up any existing InfillionAdManager before starting new ad pod
         cleanupInfillionAdManager();
 
         // Mark the current ad break as started
         if (currentAdBreak != null) {
             currentAdBreak.setStarted(true);
-            Log.d(CLASSTAG, "Ad break started: " + currentAdBreak.getBreakId());
+            AppLog.d(CLASSTAG, "Ad break started: {}", currentAdBreak.getBreakId());
         }
 
-        currentAdIndex = 0;
-
         listener.playMediaSource(mediaSource);
-        launchInfillionOverlayIfNecessary();
+        if (!launchInfillionOverlayIfNecessary()) {
+            playbackState.handle(AdPlaybackStateMachine.Event.PLAY_LINEAR);
+        }
     }
 
     public boolean isPlayingInteractiveAd() {
-        Ad currentAd = getCurrentAd();
-        return currentAd != null && currentAd.isInfillionAd();
+        return playbackState.getState() == AdPlaybackStateMachine.State.INTERACTIVE;
     }
 
     // You should call this from outside when a concatenated
     // segment finishes playing
     public void onPlaybackEnded() {
-        Log.d(CLASSTAG, "onPlaybackEnded");
+        AppLog.d(CLASSTAG, "onPlaybackEnded");
+        if (!playbackState.handle(AdPlaybackStateMachine.Event.POD_ENDED)) {
+            // Already completed, e.g. reported by both the last ad and the end of the pod
+            return;
+        }
 
-        // Mark the current ad break as completed
+        cancelFailsafeTimer();
+        cleanupInfillionAdManager();
+        markAdBreakCompleted();
+        listener.onAdBreakComplete();
+    }
+
+    private void markAdBreakCompleted() {
         if (currentAdBreak != null) {
             currentAdBreak.setCompleted(true);
-            Log.d(CLASSTAG, "Ad break completed: " + currentAdBreak.getBreakId());
+            AppLog.d(CLASSTAG, "Ad break completed: {}", currentAdBreak.getBreakId());
+            prefetchUpcomingAdBreak(currentAdBreak.getTimeOffsetMs() + 1);
         }
+    }
 
-        listener.onAdBreakComplete();
+    // You should call this from outside when the player reports a new timeline
+    // for the concatenated segment, so ad offsets use the real media durations
+    public void onPodTimelineChanged(Timeline timeline, int windowIndex) {
+        if (currentAdBreak != null) {
+            onPodTimelineChanged(currentAdBreak, timeline, windowIndex);
+        }
+    }
+
+    /**
+     * Reconcile the ad offsets of the ad break with its pod in the given window of the player's timeline
+     */
+    public void onPodTimelineChanged(AdBreak adBreak, Timeline timeline, int windowIndex) {
+        AdPodTimeline podTimeline = adBreak.getPodTimeline();
+        boolean isCurrentAdBreak = adBreak == currentAdBreak;
+        int adIndex = adBreak.getCurrentAdIndex();
+        long previousAdEndMs = isCurrentAdBreak ? podTimeline.getAdEndMs(adIndex) : 0;
+
+        int mismatches = podTimeline.updateFromTimeline(timeline, windowIndex);
+        if (mismatches > 0) {
+            PlaybackMetrics.getInstance().add(PlaybackMetrics.Counter.AD_DURATION_MISMATCH, mismatches);
+            AppLog.w(CLASSTAG, "Ad duration mismatch in {}: {} ads differ from the schedule", adBreak.getBreakId(), mismatches);
+        }
+
+        // The interactive ad is paused at a target computed from the placeholder, move it to the real end
+        if (isCurrentAdBreak && playbackState.getState() == AdPlaybackStateMachine.State.INTERACTIVE
+                && podTimeline.getAdEndMs(adIndex) != previousAdEndMs) {
+            listener.controlPlayer(PlayerAction.SEEK_AND_PAUSE, getOverlaySeekPositionMs());
+        }
     }
 
     // You should call this from outside when the player
     // transitions to a new ad in a concatenated segment
     public void onMediaItemCompleted() {
-        Log.d(CLASSTAG, "onMediaItemCompleted");
-        Ad currentAd = getCurrentAd();
-        if (currentAd == null) {
+        AppLog.d(CLASSTAG, "onMediaItemCompleted");
+        if (playbackState.getState() != AdPlaybackStateMachine.State.PLAYING_LINEAR) {
             return;
         }
 
@@ -167,10 +352,7 @@ public class AdManager {
     }
 
     private Ad getCurrentAd() {
-        if (currentAdIndex < ads.size()) {
-            return ads.get(currentAdIndex);
-        }
-        return null;
+        return currentAdBreak != null ? currentAdBreak.getCurrentAd() : null;
     }
 
     // Note that this method does not drive the ads - it only:
@@ -178,9 +360,8 @@ public class AdManager {
     //  2. shows the Infillion overlay if an Infillion ad is playing
     private void moveToNextAd() {
         // Move to next ad in concatenated segment
-        currentAdIndex++;
-        if (currentAdIndex >= ads.size()) {
-            listener.onAdBreakComplete();
+        if (currentAdBreak.getNextAd() == null) {
+            onPlaybackEnded();
         }
         else {
             // show the renderer if the new ad is Infillion
@@ -189,7 +370,7 @@ public class AdManager {
     }
 
     private void showInfillionRenderer(Ad adItem) {
-        Log.d(CLASSTAG, "showInfillionRenderer - adId: " + adItem.adId + ", type: " + adItem.adType);
+        AppLog.d(CLASSTAG, "showInfillionRenderer - adId: {}, type: {}", adItem.adId, adItem.adType);
         if (adViewGroup == null) {
             onInfillionAdComplete(false);
             return;
@@ -198,25 +379,55 @@ public class AdManager {
         // Clean up any existing InfillionAdManager before creating a new one
         cleanupInfillionAdManager();
 
-        InfillionAdManager.CompletionCallback callback = new InfillionAdManager.CompletionCallback() {
-            @Override
-            public void onAdComplete(boolean receivedCredit) {
-                onInfillionAdComplete(receivedCredit);
-            }
+        if (adItem == prewarmedAd) {
+            // Take over the renderer that was initialized ahead of time
+            infillionAdManager = prewarmedInfillionAdManager;
+            prewarmedInfillionAdManager = null;
+            prewarmedAd = null;
+        } else {
+            infillionAdManager = createInfillionAdManager();
+            infillionAdManager.prepareAd(adItem.getVastConfigUrl(), adItem.getAdParameters(), adItem.adType);
+        }
+        InfillionAdManager shownAdManager = infillionAdManager;
+        shownAdManager.showAd(adViewGroup);
 
-            @Override
-            public void onPopup(String url) {
-                // Handle popup through listener if needed
-                Log.d(CLASSTAG, "Popup requested: " + url);
-            }
-        };
+        // Start failsafe timer for interactive ads (2x duration), unless showAd() already completed
+        // the ad synchronously because it finished while it was being pre-warmed
+        if (infillionAdManager == shownAdManager
+                && playbackState.getState() == AdPlaybackStateMachine.State.INTERACTIVE) {
+            startFailsafeTimer(adItem);
+        }
+    }
 
-        infillionAdManager = new InfillionAdManager(context, callback);
-        infillionAdManager.startAd(adViewGroup, adItem.getVastConfigUrl(), adItem.adParameters, adItem.adType);
+    private InfillionAdManager createInfillionAdManager() {
+        InfillionAdManagerCallback callback = new InfillionAdManagerCallback();
+        callback.adManager = new InfillionAdManager(context, callback);
+        return callback.adManager;
+    }
 
-        // Start failsafe timer for IDVx ads (2x duration)
-        if (adItem.isInfillionAd()) {
-            startFailsafeTimer(adItem);
+    /**
+     * Forwards the callbacks of one InfillionAdManager. Only the manager whose ad is currently shown
+     * may complete the interactive ad: a pre-warmed manager, or one that has been replaced, is ignored.
+     */
+    private class InfillionAdManagerCallback implements InfillionAdManager.CompletionCallback {
+        InfillionAdManager adManager;
+
+        @Override
+        public void onAdComplete(boolean receivedCredit) {
+            if (adManager != infillionAdManager) {
+                AppLog.d(CLASSTAG, "Ignoring completion of an ad that is not shown");
+                return;
+            }
+            onInfillionAdComplete(receivedCredit);
+        }
+
+        @Override
+        public void onPopup(String url) {
+            if (adManager != infillionAdManager) {
+                return;
+            }
+            // Handle popup through listener if needed
+            AppLog.d(CLASSTAG, "Popup requested: {}", url);
         }
     }
 
@@ -227,34 +438,74 @@ public class AdManager {
         }
     }
 
+    private void cleanupPrewarmedInfillionAdManager() {
+        if (prewarmedInfillionAdManager != null) {
+            prewarmedInfillionAdManager.destroy();
+            prewarmedInfillionAdManager = null;
+        }
+        prewarmedAd = null;
+    }
+
+    /**
+     * Get the media source playing all ads of the ad break, building it on first use
+     */
+    public MediaSource getMediaSource(AdBreak adBreak) {
+        MediaSource source = adBreakMediaSources.get(adBreak.getBreakId());
+        if (source == null) {
+            source = createMediaSource(adBreak);
+            adBreakMediaSources.put(adBreak.getBreakId(), source);
+        }
+        return source;
+    }
+
     @OptIn(markerClass = UnstableApi.class)
-    private MediaSource createMediaSource(List<Ad> ads) {
+    MediaSource createMediaSource(AdBreak adBreak) {
         ConcatenatingMediaSource2.Builder builder = new ConcatenatingMediaSource2.Builder()
-            .useDefaultMediaSourceFactory(context);
-
-        for (Ad ad : ads) {
-            MediaItem mediaItem = MediaItem.fromUri(ad.getAdUrl());
-            // Add with placeholder duration to handle loading times
-            builder.add(mediaItem, ad.duration * 1000L);
+            .setMediaSourceFactory(adMediaSourceFactory);
+
+        List<Ad> ads = adBreak.getAds();
+        AdPodTimeline podTimeline = adBreak.getPodTimeline();
+        for (int i = 0; i < ads.size(); i++) {
+            MediaItem mediaItem = MediaItem.fromUri(ads.get(i).getAdUrl());
+            // Add with placeholder duration to handle loading times, the real one if the pod played before
+            builder.add(mediaItem, podTimeline.getAdDurationMs(i));
         }
 
         return builder.build();
     }
 
-    private void launchInfillionOverlayIfNecessary() {
+    /**
+     * Returns true if the current ad is interactive and its overlay was launched
+     */
+    private boolean launchInfillionOverlayIfNecessary() {
         Ad currentAd = getCurrentAd();
         if (currentAd == null || !currentAd.isInfillionAd()) {
-            return;
+            return false;
+        }
+        if (!playbackState.handle(AdPlaybackStateMachine.Event.SHOW_INTERACTIVE)) {
+            return false;
         }
 
         // Seek to just before the end of the IDVx placeholder video and pause
-        long endPosition = calculateEndPositionOfCurrentAd();
-        listener.controlPlayer(PlayerAction.SEEK_AND_PAUSE, endPosition - 100);
+        listener.controlPlayer(PlayerAction.SEEK_AND_PAUSE, getOverlaySeekPositionMs());
         showInfillionRenderer(currentAd);
+        return true;
+    }
+
+    private long getOverlaySeekPositionMs() {
+        return currentAdBreak.getPodTimeline().getAdEndMs(currentAdBreak.getCurrentAdIndex()) - 100;
     }
 
     private void onInfillionAdComplete(boolean receivedCredit) {
-        Log.d(CLASSTAG, "onInfillionAdComplete - receivedCredit: " + receivedCredit);
+        AppLog.d(CLASSTAG, "onInfillionAdComplete - receivedCredit: {}", receivedCredit);
+        // Ignore a second completion, e.g. the failsafe firing after the ad already finished
+        AdPlaybackStateMachine.Event event = receivedCredit
+            ? AdPlaybackStateMachine.Event.CREDIT_EARNED
+            : AdPlaybackStateMachine.Event.PLAY_LINEAR;
+        if (!playbackState.handle(event)) {
+            return;
+        }
+
         // Cancel failsafe timer if running
         cancelFailsafeTimer();
 
@@ -265,10 +516,9 @@ public class AdManager {
             // TrueX ads only: User earned credit by completing the interactive experience
             // Skip all remaining ads in the pod and return immediately to content
             // Mark the current ad break as completed
-            if (currentAdBreak != null) {
-                currentAdBreak.setCompleted(true);
-                Log.d(CLASSTAG, "Ad break skipped (credit earned): " + currentAdBreak.getBreakId());
-            }
+            AppLog.d(CLASSTAG, "Ad break skipped (credit earned)");
+            markAdBreakCompleted();
+            cleanupPrewarmedInfillionAdManager();
             listener.onSkipToContent();
         }
         else {
@@ -278,27 +528,27 @@ public class AdManager {
             // Resume playback - the player will trigger moveToNextAd()
             // and this will finalize the transition to the next ad.
             listener.controlPlayer(PlayerAction.PLAY, 0);
-        }
-    }
 
-    private long calculateEndPositionOfCurrentAd() {
-        // Calculate position where current ad ends in concatenated timeline
-        long positionMs = 0;
-        for (int i = 0; i <= currentAdIndex; i++) {
-            if (i < ads.size()) {
-                positionMs += ads.get(i).duration * 1000L;
-            }
+            // Get the next interactive ad in the pod ready while the linear ads play
+            prewarmNextInfillionAd(currentAdBreak.getAds(), currentAdBreak.getCurrentAdIndex() + 1);
         }
-
-        return positionMs;
     }
 
     private void startFailsafeTimer(Ad idvxAd) {
+        // Only one timer may be pending, an orphaned one would force-complete a later ad
+        cancelFailsafeTimer();
+
         // Create failsafe timer for 2x the ad duration
         long failsafeTimeoutMs = idvxAd.duration * 2000L;
+        InfillionAdManager timedAdManager = infillionAdManager;
 
         failsafeRunnable = () -> {
+            failsafeRunnable = null;
+            if (infillionAdManager != timedAdManager) {
+                return;
+            }
             // Force completion without credit
+            PlaybackMetrics.getInstance().increment(PlaybackMetrics.Counter.FAILSAFE_FIRED);
             onInfillionAdComplete(false);
         };
 
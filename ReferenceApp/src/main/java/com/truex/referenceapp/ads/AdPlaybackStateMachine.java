@@ -0,0 +1,86 @@
+package com.truex.referenceapp.ads;
+
+/**
+ * Tracks the playback state of the current ad break.
+ *
+ *   IDLE -> PREPARING -> PLAYING_LINEAR <-> INTERACTIVE -> COMPLETE
+ *
+ * Transitions are looked up in a table indexed by state and event. An event that is not valid in
+ * the current state is ignored and handle() returns false, so the caller runs the side effects of
+ * a transition only once even if several sources report the same thing (e.g. the last ad ending
+ * and the pod ending, or the interactive ad completing and its failsafe firing).
+ *
+ * The class has no Android dependencies.
+ */
+public class AdPlaybackStateMachine {
+    public enum State {
+        IDLE,
+        PREPARING,
+        PLAYING_LINEAR,
+        INTERACTIVE,
+        COMPLETE
+    }
+
+    public enum Event {
+        // An ad break has been selected and its media source is being prepared
+        PREPARE,
+        // The pod started playing, or resumed after an interactive ad without credit
+        PLAY_LINEAR,
+        // An interactive ad is shown over the paused pod
+        SHOW_INTERACTIVE,
+        // The viewer earned credit in the interactive ad, the rest of the pod is skipped
+        CREDIT_EARNED,
+        // The last ad of the pod finished
+        POD_ENDED,
+        // Playback was torn down
+        RESET
+    }
+
+    private static final State[] STATES = State.values();
+    private static final Event[] EVENTS = Event.values();
+    private static final State[][] TRANSITIONS = new State[STATES.length][EVENTS.length];
+
+    static {
+        addTransition(State.IDLE, Event.PREPARE, State.PREPARING);
+        addTransition(State.COMPLETE, Event.PREPARE, State.PREPARING);
+        addTransition(State.PREPARING, Event.PLAY_LINEAR, State.PLAYING_LINEAR);
+        addTransition(State.PREPARING, Event.SHOW_INTERACTIVE, State.INTERACTIVE);
+        addTransition(State.PLAYING_LINEAR, Event.SHOW_INTERACTIVE, State.INTERACTIVE);
+        addTransition(State.PLAYING_LINEAR, Event.POD_ENDED, State.COMPLETE);
+        addTransition(State.INTERACTIVE, Event.PLAY_LINEAR, State.PLAYING_LINEAR);
+        addTransition(State.INTERACTIVE, Event.CREDIT_EARNED, State.COMPLETE);
+        addTransition(State.INTERACTIVE, Event.POD_ENDED, State.COMPLETE);
+        for (State state : STATES) {
+            addTransition(state, Event.RESET, State.IDLE);
+        }
+    }
+
+    private static void addTransition(State from, Event event, State to) {
+        TRANSITIONS[from.ordinal()][event.ordinal()] = to;
+    }
+
+    private State state = State.IDLE;
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Apply the event. Returns true if it caused a transition, false if it was ignored.
+     */
+    public boolean handle(Event event) {
+        State next = TRANSITIONS[state.ordinal()][event.ordinal()];
+        if (next == null) {
+            return false;
+        }
+        state = next;
+        return true;
+    }
+
+    /**
+     * Returns true if the event would cause a transition in the current state
+     */
+    public boolean canHandle(Event event) {
+        return TRANSITIONS[state.ordinal()][event.ordinal()] != null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.truex.referenceapp.ads;
+
+import androidx.media3.common.C;
+import androidx.media3.common.Timeline;
+
+import java.util.List;
+
+/**
+ * Start and end offsets of each ad within an ad pod's concatenated media source.
+ *
+ * The offsets are kept as a prefix sum table, so looking up where an ad starts or ends is O(1)
+ * and finding the ad at a position is a binary search. The table starts out from the placeholder
+ * ad durations of the schedule and is corrected with the real media durations once the player
+ * has prepared the pod.
+ */
+public class AdPodTimeline {
+    // Real durations within this much of the scheduled one are not counted as a mismatch
+    public static long durationMismatchToleranceMs = 500;
+
+    // adStartMs[i] is the start of ad i; adStartMs[adCount] is the duration of the whole pod
+    private final long[] adStartMs;
+
+    // Whether the duration of each ad has been replaced by its real media duration
+    private final boolean[] reconciled;
+
+    public AdPodTimeline(List<Ad> ads) {
+        adStartMs = new long[ads.size() + 1];
+        reconciled = new boolean[ads.size()];
+        for (int i = 0; i < ads.size(); i++) {
+            adStartMs[i + 1] = adStartMs[i] + ads.get(i).duration * 1000L;
+        }
+    }
+
+    public int getAdCount() {
+        return adStartMs.length - 1;
+    }
+
+    public long getAdStartMs(int adIndex) {
+        return adStartMs[adIndex];
+    }
+
+    public long getAdEndMs(int adIndex) {
+        return adStartMs[adIndex + 1];
+    }
+
+    public long getAdDurationMs(int adIndex) {
+        return adStartMs[adIndex + 1] - adStartMs[adIndex];
+    }
+
+    public long getDurationMs() {
+        return adStartMs[adStartMs.length - 1];
+    }
+
+    public boolean isReconciled(int adIndex) {
+        return reconciled[adIndex];
+    }
+
+    /**
+     * Returns the index of the ad playing at the position within the pod, or -1 if outside the pod
+     */
+    public int getAdIndexAt(long positionMs) {
+        if (positionMs < 0 || positionMs >= getDurationMs()) {
+            return -1;
+        }
+        // Last ad start at or before the position
+        int low = 0;
+        int high = getAdCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (adStartMs[mid] <= positionMs) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replace the duration of an ad, shifting the offsets of the ads after it.
+     * Returns true if the duration changed.
+     */
+    public boolean setAdDurationMs(int adIndex, long durationMs) {
+        long deltaMs = durationMs - getAdDurationMs(adIndex);
+        if (deltaMs == 0) {
+            return false;
+        }
+        for (int i = adIndex + 1; i < adStartMs.length; i++) {
+            adStartMs[i] += deltaMs;
+        }
+        return true;
+    }
+
+    /**
+     * Replace the placeholder durations with the real ones from the prepared pod in the given window
+     * of the player's timeline. Each ad is one period of the window; periods still showing their
+     * placeholder are skipped, and each ad is reconciled only once.
+     * Returns the number of ads newly reconciled whose real duration differs from the scheduled one
+     * by more than durationMismatchToleranceMs.
+     */
+    public int updateFromTimeline(Timeline timeline, int windowIndex) {
+        if (windowIndex < 0 || windowIndex >= timeline.getWindowCount()) {
+            return 0;
+        }
+        Timeline.Window window = timeline.getWindow(windowIndex, new Timeline.Window());
+        if (window.lastPeriodIndex - window.firstPeriodIndex + 1 != getAdCount()) {
+            return 0;
+        }
+
+        int mismatches = 0;
+        Timeline.Period period = new Timeline.Period();
+        for (int i = 0; i < getAdCount(); i++) {
+            if (reconciled[i]) {
+                continue;
+            }
+            timeline.getPeriod(window.firstPeriodIndex + i, period);
+            if (period.isPlaceholder || period.durationUs == C.TIME_UNSET) {
+                continue;
+            }
+            long durationMs = period.getDurationMs();
+            if (Math.abs(durationMs - getAdDurationMs(i)) > durationMismatchToleranceMs) {
+                mismatches++;
+            }
+            setAdDurationMs(i, durationMs);
+            reconciled[i] = true;
+        }
+        return mismatches;
+    }
+}
@@ -1,7 +1,12 @@
 package com.truex.referenceapp.ads;
 
 import android.content.Context;
-import android.util.Log;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.truex.referenceapp.AppLog;
 
 import org.apache.commons.text.StringEscapeUtils;
 import org.json.JSONArray;
@@ -9,13 +14,21 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Provides ad break data by parsing JSON configuration from resources.
@@ -23,11 +36,78 @@ import java.util.List;
 public class AdProvider {
     private static final String CLASSTAG = AdProvider.class.getSimpleName();
 
+    // Parse the schedule with the streaming AdScheduleParser rather than building a JSONObject tree
+    public static boolean useStreamingParser = true;
+
+    // Load the parsed schedule from a memory-mapped binary cache when the JSON has not changed
+    public static boolean useScheduleCache = true;
+
+    // Schedules are parsed one at a time off the main thread
+    private static final ExecutorService parseExecutor = Executors.newSingleThreadExecutor();
+
     private List<AdBreak> adBreakList;
 
+    public interface LoadCallback {
+        void onAdBreaksLoaded(List<AdBreak> adBreaks);
+    }
+
+    /**
+     * Read and parse the ad breaks on a background thread.
+     * The callback is invoked on the main thread with the ad breaks sorted by timeOffset. It is
+     * always invoked, with an empty schedule if the ad breaks could not be loaded, so content plays.
+     */
+    public static Future<?> loadAsync(Context context, int resourceId, LoadCallback callback) {
+        Context appContext = context.getApplicationContext();
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        return parseExecutor.submit(() -> {
+            List<AdBreak> adBreaks;
+            try {
+                adBreaks = new AdProvider(appContext, resourceId).getAllAdBreaks();
+            } catch (Throwable e) {
+                // Anything thrown here would be swallowed by the Future and the callback never called
+                AppLog.e(CLASSTAG, "Error loading ad breaks", e);
+                adBreaks = Collections.emptyList();
+            }
+            List<AdBreak> loadedAdBreaks = adBreaks;
+            mainHandler.post(() -> callback.onAdBreaksLoaded(loadedAdBreaks));
+        });
+    }
+
+    /**
+     * Fetch the ad breaks from an ad server, see RemoteAdScheduleSource.
+     * The callback is invoked on the main thread with the ad breaks sorted by timeOffset.
+     */
+    public static Future<?> loadAsync(Context context, String scheduleUrl, LoadCallback callback) {
+        return RemoteAdScheduleSource.getInstance(context).load(scheduleUrl, callback);
+    }
+
+    /**
+     * Parse ad breaks from a schedule JSON file, e.g. a response cached from an ad server
+     *
+     * @param cacheKey - identifies the schedule source in the schedule cache
+     */
+    public AdProvider(Context context, String cacheKey, File schedule) {
+        this.adBreakList = new ArrayList<>();
+        if (useScheduleCache) {
+            loadAdBreaks(context, cacheKey, schedule);
+        } else {
+            readAdBreaks(schedule);
+        }
+        sortAdBreaks();
+        AppLog.d(CLASSTAG, "Parsed {} ad breaks", adBreakList.size());
+    }
+
     public AdProvider(Context context, int resourceId) {
         this.adBreakList = new ArrayList<>();
-        parseAdBreaks(context, resourceId);
+        if (useScheduleCache) {
+            loadAdBreaks(context, resourceId);
+        } else if (useStreamingParser) {
+            streamAdBreaks(context.getResources().openRawResource(resourceId));
+        } else {
+            parseAdBreaks(getRawFileContents(context.getResources().openRawResource(resourceId)));
+        }
+        sortAdBreaks();
+        AppLog.d(CLASSTAG, "Parsed {} ad breaks", adBreakList.size());
     }
 
     /**
@@ -38,8 +118,61 @@ public class AdProvider {
         return new ArrayList<>(adBreakList);
     }
 
-    private void parseAdBreaks(Context context, int resourceId) {
-        String rawFile = getRawFileContents(context, resourceId);
+    /**
+     * Load the ad breaks from the schedule cache, streaming the resource and caching the result on a miss
+     */
+    private void loadAdBreaks(Context context, int resourceId) {
+        // A bundled schedule can only change when the app is updated, so a hit never reads the resource
+        long contentKey;
+        try {
+            contentKey = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            streamAdBreaks(context.getResources().openRawResource(resourceId));
+            return;
+        }
+
+        AdScheduleCache cache = new AdScheduleCache(context, "res-" + resourceId);
+        if (loadCachedAdBreaks(cache, contentKey)) {
+            return;
+        }
+        long startMs = SystemClock.elapsedRealtime();
+        boolean parsed = useStreamingParser
+            ? streamAdBreaks(context.getResources().openRawResource(resourceId))
+            : parseAdBreaks(getRawFileContents(context.getResources().openRawResource(resourceId)));
+        AppLog.d(CLASSTAG, "Parsed ad breaks JSON in {}ms", SystemClock.elapsedRealtime() - startMs);
+        // Never cache a schedule that only parsed partially
+        if (parsed) {
+            cache.store(contentKey, adBreakList);
+        }
+    }
+
+    private void loadAdBreaks(Context context, String cacheKey, File schedule) {
+        // Keyed by the file's size and modification time, so a hit never reads the file
+        AdScheduleCache cache = new AdScheduleCache(context, cacheKey);
+        long contentKey = AdScheduleCache.contentKey(schedule);
+        if (loadCachedAdBreaks(cache, contentKey)) {
+            return;
+        }
+        long startMs = SystemClock.elapsedRealtime();
+        boolean parsed = readAdBreaks(schedule);
+        AppLog.d(CLASSTAG, "Parsed ad breaks JSON in {}ms", SystemClock.elapsedRealtime() - startMs);
+        if (parsed) {
+            cache.store(contentKey, adBreakList);
+        }
+    }
+
+    private boolean loadCachedAdBreaks(AdScheduleCache cache, long contentKey) {
+        long startMs = SystemClock.elapsedRealtime();
+        List<AdBreak> cachedAdBreaks = cache.load(contentKey);
+        if (cachedAdBreaks == null) {
+            return false;
+        }
+        adBreakList.addAll(cachedAdBreaks);
+        AppLog.d(CLASSTAG, "Loaded ad breaks from the schedule cache in {}ms", SystemClock.elapsedRealtime() - startMs);
+        return true;
+    }
+
+    private boolean parseAdBreaks(String rawFile) {
         try {
             JSONObject rawJson = new JSONObject(rawFile);
             JSONArray adBreaksArray = rawJson.getJSONArray("adBreaks");
@@ -70,9 +203,9 @@ public class AdProvider {
                         description = StringEscapeUtils.unescapeJava(adJson.getString("description"));
                     }
 
-                    JSONObject adParameters = null;
+                    ByteBuffer adParameters = null;
                     if (adJson.has("adParameters")) {
-                        adParameters = adJson.getJSONObject("adParameters");
+                        adParameters = ByteBuffer.wrap(adJson.getJSONObject("adParameters").toString().getBytes(StandardCharsets.UTF_8));
                     }
 
                     int adDuration = adJson.optInt("duration", duration);
@@ -85,23 +218,45 @@ public class AdProvider {
                 AdBreak adBreak = new AdBreak(breakId, timeOffsetMs, ads);
                 adBreakList.add(adBreak);
             }
+            return true;
+        } catch (JSONException e) {
+            AppLog.e(CLASSTAG, "Error parsing ad breaks JSON", e);
+            return false;
+        }
+    }
 
-            // Sort ad breaks by time offset
-            Collections.sort(adBreakList, new Comparator<AdBreak>() {
-                @Override
-                public int compare(AdBreak a, AdBreak b) {
-                    return Integer.compare(a.getTimeOffsetMs(), b.getTimeOffsetMs());
-                }
-            });
+    private boolean readAdBreaks(File schedule) {
+        InputStream stream;
+        try {
+            stream = new FileInputStream(schedule);
+        } catch (FileNotFoundException e) {
+            AppLog.e(CLASSTAG, "Error opening ad breaks JSON", e);
+            return false;
+        }
+        return useStreamingParser ? streamAdBreaks(stream) : parseAdBreaks(getRawFileContents(stream));
+    }
 
-            Log.d(CLASSTAG, "Parsed " + adBreakList.size() + " ad breaks");
-        } catch (JSONException e) {
-            Log.e(CLASSTAG, "Error parsing ad breaks JSON", e);
+    private boolean streamAdBreaks(InputStream stream) {
+        try {
+            AdScheduleParser.parse(stream, adBreakList::add);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            AppLog.e(CLASSTAG, "Error parsing ad breaks JSON", e);
+            return false;
         }
     }
 
-    private String getRawFileContents(Context context, int resourceId) {
-        InputStream stream = context.getResources().openRawResource(resourceId);
+    // Sort ad breaks by time offset
+    private void sortAdBreaks() {
+        Collections.sort(adBreakList, new Comparator<AdBreak>() {
+            @Override
+            public int compare(AdBreak a, AdBreak b) {
+                return Integer.compare(a.getTimeOffsetMs(), b.getTimeOffsetMs());
+            }
+        });
+    }
+
+    private String getRawFileContents(InputStream stream) {
         StringBuilder stringBuilder = new StringBuilder();
         BufferedReader reader = null;
         try {
@@ -111,13 +266,13 @@ public class AdProvider {
                 stringBuilder.append(line);
             }
         } catch (IOException e) {
-            Log.e(CLASSTAG, "Error reading raw file", e);
+            AppLog.e(CLASSTAG, "Error reading raw file", e);
         } finally {
             if (reader != null) {
                 try {
                     reader.close();
                 } catch (IOException e) {
-                    Log.e(CLASSTAG, "Error closing reader", e);
+                    AppLog.e(CLASSTAG, "Error closing reader", e);
                 }
             }
         }
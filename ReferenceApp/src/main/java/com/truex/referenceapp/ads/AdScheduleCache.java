@@ -0,0 +1,292 @@
+package com.truex.referenceapp.ads;
+
+import android.content.Context;
+
+import com.truex.referenceapp.AppLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary on-disk cache of a parsed ad schedule.
+ *
+ * The parsed ad breaks are written to the app cache dir in a compact format, and later sessions
+ * memory-map that file instead of parsing the JSON again. Each cache file belongs to one schedule
+ * source (e.g. a raw resource) and records the content key of the JSON it was built from, so a
+ * changed schedule, a different format version or a damaged file is treated as a miss and the
+ * caller falls back to parsing. The content key is chosen by the caller and must change whenever
+ * the JSON does (e.g. the app's update time for a bundled resource, or the size and modification
+ * time of a downloaded schedule file), so a hit never has to read the JSON at all.
+ *
+ * Format (big endian):
+ *
+ *   int magic, int version, long contentKey
+ *   int stringCount, int[stringCount + 1] stringOffsets, byte[] utf8 string data
+ *   int adBreakCount, then per ad break:
+ *     int breakId, int timeOffsetMs, int adCount, then per ad:
+ *       int adSystem, int mediaFile, int description, int adParameters, int duration, int adId
+ *
+ * Strings (and the adParameters JSON) are indexes into the string table, which holds each
+ * distinct value once; -1 stands for null. Loading decodes a string the first time an ad break
+ * refers to it, and hands adParameters to the ads as slices of the mapped file without copying.
+ * A mapping stays valid after the file is closed or replaced, and is released once the last ad
+ * referring to it is garbage collected.
+ */
+public class AdScheduleCache {
+    private static final String CLASSTAG = AdScheduleCache.class.getSimpleName();
+
+    private static final String CACHE_DIR_NAME = "ad_schedules";
+    private static final int MAGIC = 0x41445343; // "ADSC"
+    private static final int VERSION = 2;
+    private static final int NO_STRING = -1;
+    private static final int HEADER_SIZE = 16;
+
+    private final File file;
+
+    /**
+     * @param key - identifies the schedule source, e.g. "res-" + resourceId
+     */
+    public AdScheduleCache(Context context, String key) {
+        File dir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+        this.file = new File(dir, key + ".bin");
+    }
+
+    /**
+     * Returns the content key for a schedule file from its size and modification time. The file
+     * must be replaced, not rewritten in place, when the schedule changes.
+     */
+    public static long contentKey(File content) {
+        return 31 * content.lastModified() + content.length();
+    }
+
+    /**
+     * Load the ad breaks cached for the schedule content, or null if there is no valid cache entry
+     */
+    public List<AdBreak> load(long contentKey) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != contentKey) {
+                AppLog.d(CLASSTAG, "Stale ad schedule cache: {}", file.getName());
+                return null;
+            }
+            return readAdBreaks(buffer);
+        } catch (IOException | RuntimeException e) {
+            // A truncated or corrupt file shows up as a buffer underflow or bad index
+            AppLog.w(CLASSTAG, "Error reading ad schedule cache {}", file.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Cache the ad breaks parsed from the schedule content, replacing any previous entry
+     */
+    public void store(long contentKey, List<AdBreak> adBreaks) {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            return;
+        }
+        // Each store writes its own temp file, so concurrent stores of the same key never interleave
+        File tempFile;
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+        } catch (IOException e) {
+            AppLog.w(CLASSTAG, "Error writing ad schedule cache {}", file.getName(), e);
+            return;
+        }
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            output.write(write(contentKey, adBreaks).array());
+            output.getFD().sync();
+        } catch (IOException e) {
+            AppLog.w(CLASSTAG, "Error writing ad schedule cache {}", file.getName(), e);
+            tempFile.delete();
+            return;
+        }
+        // Replace the old entry in one step so a reader never maps a half written file
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+        }
+    }
+
+    private static List<AdBreak> readAdBreaks(ByteBuffer buffer) {
+        MappedStringTable strings = new MappedStringTable(buffer);
+
+        int adBreakCount = buffer.getInt();
+        List<AdBreak> adBreaks = new ArrayList<>(adBreakCount);
+        for (int i = 0; i < adBreakCount; i++) {
+            String breakId = strings.get(buffer.getInt());
+            int timeOffsetMs = buffer.getInt();
+            int adCount = buffer.getInt();
+            List<Ad> ads = new ArrayList<>(adCount);
+            for (int j = 0; j < adCount; j++) {
+                String adSystem = strings.get(buffer.getInt());
+                String mediaFile = strings.get(buffer.getInt());
+                String description = strings.get(buffer.getInt());
+                ByteBuffer adParametersJson = strings.slice(buffer.getInt());
+                int duration = buffer.getInt();
+                String adId = strings.get(buffer.getInt());
+                ads.add(new Ad(adSystem, mediaFile, description, adParametersJson, duration, adId));
+            }
+            adBreaks.add(new AdBreak(breakId, timeOffsetMs, ads));
+        }
+        return adBreaks;
+    }
+
+    private static ByteBuffer write(long contentKey, List<AdBreak> adBreaks) {
+        StringTable strings = new StringTable();
+        int recordSize = 4;
+        for (AdBreak adBreak : adBreaks) {
+            strings.add(adBreak.getBreakId());
+            recordSize += 12;
+            for (Ad ad : adBreak.getAds()) {
+                strings.add(ad.adSystem);
+                strings.add(ad.mediaFile);
+                strings.add(ad.description);
+                strings.add(ad.getAdParametersJson());
+                strings.add(ad.adId);
+                recordSize += 24;
+            }
+        }
+
+        int stringTableSize = 4 + 4 * (strings.size() + 1) + strings.dataSize;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + stringTableSize + recordSize);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(contentKey);
+
+        buffer.putInt(strings.size());
+        int offset = 0;
+        buffer.putInt(offset);
+        for (byte[] value : strings.values) {
+            offset += value.length;
+            buffer.putInt(offset);
+        }
+        for (byte[] value : strings.values) {
+            buffer.put(value);
+        }
+
+        buffer.putInt(adBreaks.size());
+        for (AdBreak adBreak : adBreaks) {
+            buffer.putInt(strings.indexOf(adBreak.getBreakId()));
+            buffer.putInt(adBreak.getTimeOffsetMs());
+            buffer.putInt(adBreak.getAds().size());
+            for (Ad ad : adBreak.getAds()) {
+                buffer.putInt(strings.indexOf(ad.adSystem));
+                buffer.putInt(strings.indexOf(ad.mediaFile));
+                buffer.putInt(strings.indexOf(ad.description));
+                buffer.putInt(strings.indexOf(ad.getAdParametersJson()));
+                buffer.putInt(ad.duration);
+                buffer.putInt(strings.indexOf(ad.adId));
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * The string table of a mapped cache file, decoded one string at a time as it is first needed
+     */
+    private static class MappedStringTable {
+        private final ByteBuffer buffer;
+        private final int offsetsStart;
+        private final int dataStart;
+        private final String[] decoded;
+
+        /**
+         * Reads the table at the buffer's position and leaves the position just past it
+         */
+        MappedStringTable(ByteBuffer buffer) {
+            int stringCount = buffer.getInt();
+            this.buffer = buffer;
+            this.offsetsStart = buffer.position();
+            this.dataStart = offsetsStart + 4 * (stringCount + 1);
+            this.decoded = new String[stringCount];
+            ((Buffer) buffer).position(dataStart + offset(stringCount));
+        }
+
+        String get(int index) {
+            if (index == NO_STRING) {
+                return null;
+            }
+            if (decoded[index] == null) {
+                decoded[index] = StandardCharsets.UTF_8.decode(slice(index)).toString();
+            }
+            return decoded[index];
+        }
+
+        ByteBuffer slice(int index) {
+            if (index == NO_STRING) {
+                return null;
+            }
+            // Cast to Buffer, the covariant ByteBuffer overrides are missing on older Android versions
+            ByteBuffer value = buffer.duplicate();
+            ((Buffer) value).limit(dataStart + offset(index + 1));
+            ((Buffer) value).position(dataStart + offset(index));
+            return value.slice().asReadOnlyBuffer();
+        }
+
+        private int offset(int index) {
+            if (index < 0 || index > decoded.length) {
+                throw new IndexOutOfBoundsException("String " + index + " of " + decoded.length);
+            }
+            return buffer.getInt(offsetsStart + 4 * index);
+        }
+    }
+
+    /**
+     * Distinct UTF-8 values in insertion order
+     */
+    private static class StringTable {
+        final List<byte[]> values = new ArrayList<>();
+        final Map<String, Integer> indexes = new HashMap<>();
+        int dataSize;
+
+        int size() {
+            return values.size();
+        }
+
+        void add(String value) {
+            if (value != null) {
+                add(value, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void add(ByteBuffer value) {
+            if (value != null) {
+                byte[] bytes = new byte[value.remaining()];
+                value.get(bytes);
+                add(new String(bytes, StandardCharsets.UTF_8), bytes);
+            }
+        }
+
+        private void add(String key, byte[] value) {
+            if (!indexes.containsKey(key)) {
+                indexes.put(key, values.size());
+                values.add(value);
+                dataSize += value.length;
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? NO_STRING : indexes.get(value);
+        }
+
+        int indexOf(ByteBuffer value) {
+            return value == null ? NO_STRING : indexes.get(StandardCharsets.UTF_8.decode(value).toString());
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.truex.referenceapp.ads;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for the ad schedule JSON.
+ *
+ * Walks the document token by token with a JsonReader and hands each AdBreak to the listener as
+ * soon as it has been read, so the whole schedule is never held as a JSON tree in memory. The
+ * field defaults and coercions mirror the JSONObject based parsing in AdProvider.
+ */
+public class AdScheduleParser {
+    private static final int DEFAULT_AD_DURATION = 30;
+    private static final int VALUE_UNSET = Integer.MIN_VALUE;
+
+    public interface Listener {
+        void onAdBreak(AdBreak adBreak);
+    }
+
+    private AdScheduleParser() {
+    }
+
+    /**
+     * Parse the ad schedule from the stream, emitting ad breaks in document order.
+     * The stream is closed when parsing is done.
+     */
+    public static void parse(InputStream stream, Listener listener) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("adBreaks".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        listener.onAdBreak(readAdBreak(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static AdBreak readAdBreak(JsonReader reader) throws IOException {
+        String breakId = null;
+        int timeOffsetMs = VALUE_UNSET;
+        int duration = DEFAULT_AD_DURATION;
+        List<Ad> ads = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "breakId":
+                    breakId = readString(reader, null);
+                    break;
+                case "timeOffsetMs":
+                    timeOffsetMs = readInt(reader, VALUE_UNSET);
+                    break;
+                case "videoAdDuration":
+                    duration = readInt(reader, DEFAULT_AD_DURATION);
+                    break;
+                case "ads":
+                    ads = readAds(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (breakId == null || timeOffsetMs == VALUE_UNSET || ads == null) {
+            throw new IOException("Ad break is missing breakId, timeOffsetMs or ads");
+        }
+
+        // videoAdDuration may follow the ads array, so fill in the default durations afterwards
+        for (Ad ad : ads) {
+            if (ad.duration == VALUE_UNSET) {
+                ad.duration = duration;
+            }
+        }
+        return new AdBreak(breakId, timeOffsetMs, ads);
+    }
+
+    private static List<Ad> readAds(JsonReader reader) throws IOException {
+        List<Ad> ads = new ArrayList<>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IOException("Ad break ads is not an array");
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            ads.add(readAd(reader, ads.size()));
+        }
+        reader.endArray();
+        return ads;
+    }
+
+    private static Ad readAd(JsonReader reader, int index) throws IOException {
+        String adId = null;
+        String adSystem = null;
+        String mediaFile = null;
+        String description = null;
+        ByteBuffer adParameters = null;
+        int adDuration = VALUE_UNSET;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    adId = readString(reader, null);
+                    break;
+                case "adSystem":
+                    adSystem = readString(reader, null);
+                    break;
+                case "mediaFile":
+                    mediaFile = unescape(readString(reader, null));
+                    break;
+                case "description":
+                    description = unescape(readString(reader, null));
+                    break;
+                case "adParameters":
+                    adParameters = readAdParameters(reader);
+                    break;
+                case "duration":
+                    adDuration = readInt(reader, VALUE_UNSET);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (adId == null) {
+            adId = "ad-" + index;
+        }
+        if (adSystem == null) {
+            adSystem = "GDFP";
+        }
+        return new Ad(adSystem, mediaFile, description, adParameters, adDuration, adId);
+    }
+
+    /**
+     * Copies the adParameters object as compact JSON. It is only parsed when the ad is shown.
+     */
+    private static ByteBuffer readAdParameters(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        StringWriter json = new StringWriter();
+        JsonWriter writer = new JsonWriter(json);
+        copyValue(reader, writer);
+        writer.close();
+        return ByteBuffer.wrap(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
+                }
+                reader.endArray();
+                writer.endArray();
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            case NUMBER:
+                // BigDecimal keeps the number exactly as written, whatever its size
+                writer.value(new BigDecimal(reader.nextString()));
+                break;
+            default:
+                writer.value(reader.nextString());
+                break;
+        }
+    }
+
+    /**
+     * Reads a scalar as a string, like JSONObject.optString. Objects and arrays yield the fallback.
+     */
+    private static String readString(JsonReader reader, String fallback) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return "null";
+            default:
+                reader.skipValue();
+                return fallback;
+        }
+    }
+
+    /**
+     * Reads an int from a number or numeric string, like JSONObject.optInt
+     */
+    private static int readInt(JsonReader reader, int fallback) throws IOException {
+        JsonToken token = reader.peek();
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return fallback;
+        }
+        String literal = reader.nextString();
+        try {
+            return Integer.parseInt(literal);
+        } catch (NumberFormatException e) {
+            try {
+                return (int) Double.parseDouble(literal);
+            } catch (NumberFormatException ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        // Most URLs contain no escapes, so avoid the copy made by unescapeJava
+        if (value == null || value.indexOf('\\') < 0) {
+            return value;
+        }
+        return StringEscapeUtils.unescapeJava(value);
+    }
+}
@@ -2,13 +2,14 @@ package com.truex.referenceapp.ads;
 
 import android.content.Context;
 import android.os.Handler;
-import android.util.Log;
 import android.view.ViewGroup;
 
 import com.truex.adrenderer.IEventEmitter;
 import com.truex.adrenderer.TruexAdEvent;
 import com.truex.adrenderer.TruexAdOptions;
 import com.truex.adrenderer.TruexAdRenderer;
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
 
 import org.json.JSONObject;
 
@@ -50,10 +51,16 @@ public class InfillionAdManager {
 
     private CompletionCallback completionCallback;
     private boolean didReceiveCredit;
+    private TruexAdRendererPool rendererPool;
+    private TruexAdRendererPool.Lease rendererLease;
     private TruexAdRenderer truexAdRenderer;
 
     private ViewGroup viewGroup;
 
+    // Pre-warm state: the renderer may be initialized before the ad is shown
+    private boolean adLoaded;
+    private boolean completedBeforeShow;
+
     // Default to showing the ad immediately while it is being fetched.
     private static final boolean showAdImmediately = true;
     private static final boolean showAdAfterLoad = !showAdImmediately;
@@ -63,14 +70,16 @@ public class InfillionAdManager {
 
         didReceiveCredit = false;
 
-        // Set-up the true[X] ad renderer
-        truexAdRenderer = new TruexAdRenderer(context);
+        // Set-up the true[X] ad renderer, taking the one the pool has prepared when available
+        rendererPool = TruexAdRendererPool.getInstance(context);
+        rendererLease = rendererPool.acquire();
+        truexAdRenderer = rendererLease.getRenderer();
 
-        // Set-up the event listeners
-        truexAdRenderer.addEventListener(null, adEventHandler); // listen to all events.
+        // Set-up the event listeners, they are removed again when the renderer is released
+        rendererLease.addEventListener(null, adEventHandler); // listen to all events.
         if (supportUserCancelStream) {
             // We use an explicit listener to allow the tar to know user cancel stream is supported.
-            truexAdRenderer.addEventListener(TruexAdEvent.USER_CANCEL_STREAM, this::onCancelStream);
+            rendererLease.addEventListener(TruexAdEvent.USER_CANCEL_STREAM, this::onCancelStream);
         }
     }
 
@@ -95,17 +104,30 @@ public class InfillionAdManager {
      * @param adType - TRUEX or IDVX
      */
     public void startAd(ViewGroup viewGroup, String vastConfigUrl, JSONObject adParameters, AdType adType) {
-        Log.d(CLASSTAG, "startAd called - ViewGroup: " + viewGroup + ", URL: " + vastConfigUrl +
-              ", Has adParameters: " + (adParameters != null) + ", adType: " + adType);
-        this.viewGroup = viewGroup;
+        if (AppLog.DEBUG_ENABLED) {
+            AppLog.d(CLASSTAG, "startAd called - ViewGroup: " + viewGroup + ", URL: " + vastConfigUrl +
+                ", Has adParameters: " + (adParameters != null) + ", adType: " + adType);
+        }
+        prepareAd(vastConfigUrl, adParameters, adType);
+        showAd(viewGroup);
+    }
 
+    /**
+     * Initialize the renderer ahead of time so the ad configuration is fetched before the ad is
+     * reached. Call showAd() once the ad pod reaches this ad.
+     *
+     * @param vastConfigUrl - VAST config URL for TrueX ads (null for IDVx)
+     * @param adParameters - JSON configuration for IDVx ads (null for TrueX)
+     * @param adType - TRUEX or IDVX
+     */
+    public void prepareAd(String vastConfigUrl, JSONObject adParameters, AdType adType) {
         TruexAdOptions options = new TruexAdOptions();
         // Only true[X] ads support user cancel stream, IDVx ads should not
         boolean isTrueXAd = (adType == AdType.TRUEX);
         options.supportsUserCancelStream = isTrueXAd && supportUserCancelStream;
         options.fallbackAdvertisingId = UUID.randomUUID().toString();
 
-        Log.d(CLASSTAG, "Calling truexAdRenderer.init()");
+        AppLog.d(CLASSTAG, "Calling truexAdRenderer.init()");
         if (adParameters != null) {
             // IDVx ad - pass adParameters directly
             truexAdRenderer.init(adParameters, options);
@@ -113,12 +135,34 @@ public class InfillionAdManager {
             // TrueX ad - use standard VAST URL
             truexAdRenderer.init(vastConfigUrl, options);
         }
+    }
+
+    /**
+     * Display the prepared interactive engagement
+     *
+     * @param viewGroup - the view group in which to display the interactive engagement
+     */
+    public void showAd(ViewGroup viewGroup) {
+        this.viewGroup = viewGroup;
+
+        if (completedBeforeShow) {
+            // The ad already failed or had nothing to show while it was being prepared
+            AppLog.d(CLASSTAG, "Ad completed before it was shown");
+            completionCallback.onAdComplete(didReceiveCredit);
+            return;
+        }
+
+        PlaybackMetrics.getInstance().start(PlaybackMetrics.Timer.OVERLAY_DISPLAY);
+        if (adLoaded) {
+            // Pre-warmed, the ad was displayable before it was reached
+            PlaybackMetrics.getInstance().stop(PlaybackMetrics.Timer.OVERLAY_DISPLAY);
+        }
 
-        if (showAdImmediately) {
-            Log.d(CLASSTAG, "Calling truexAdRenderer.start() with ViewGroup: " + viewGroup);
+        if (showAdImmediately || adLoaded) {
+            AppLog.d(CLASSTAG, "Calling truexAdRenderer.start() with ViewGroup: {}", viewGroup);
             truexAdRenderer.start(viewGroup);
         } else {
-            Log.d(CLASSTAG, "showAdImmediately is false, not starting renderer yet");
+            AppLog.d(CLASSTAG, "showAdImmediately is false, not starting renderer yet");
         }
     }
 
@@ -140,7 +184,10 @@ public class InfillionAdManager {
      * Inform that the true[X] ad renderer that the application has stopped
      */
     public void onStop() {
-        truexAdRenderer.stop();
+        // Through the lease, so destroy() does not stop the renderer a second time
+        if (rendererLease != null) {
+            rendererLease.stop();
+        }
     }
 
     /**
@@ -148,17 +195,18 @@ public class InfillionAdManager {
      * Should be called when the ad is complete or when disposing
      */
     public void destroy() {
-        Log.d(CLASSTAG, "Destroying InfillionAdManager");
-        if (truexAdRenderer != null) {
-            truexAdRenderer.removeEventListener(null, adEventHandler);
-            truexAdRenderer.stop();
+        AppLog.d(CLASSTAG, "Destroying InfillionAdManager");
+        if (rendererLease != null) {
+            // Stops the renderer, unless onStop() already did, and removes our listeners
+            rendererPool.release(rendererLease);
+            rendererLease = null;
             truexAdRenderer = null;
         }
         completionCallback = null;
     }
 
     private void adEventHandler(TruexAdEvent event, Map<String, ?> data) {
-        Log.i(CLASSTAG, "ad event: " + event);
+        AppLog.i(CLASSTAG, "ad event: {}", event);
         switch (event) {
             case AD_STARTED:
                 // The ad has started.
@@ -169,10 +217,16 @@ public class InfillionAdManager {
                 break;
 
             case AD_DISPLAYED:
-                if (showAdAfterLoad) {
-                    // Ad is ready to be shown.
+                adLoaded = true;
+                PlaybackMetrics.getInstance().stop(PlaybackMetrics.Timer.OVERLAY_DISPLAY);
+                if (showAdAfterLoad && viewGroup != null) {
+                    // Ad is ready to be shown, and the ad pod has reached it.
                     Handler handler = new Handler();
-                    handler.post(() -> truexAdRenderer.start(viewGroup));
+                    handler.post(() -> {
+                        if (truexAdRenderer != null) {
+                            truexAdRenderer.start(viewGroup);
+                        }
+                    });
                 }
                 break;
 
@@ -185,6 +239,11 @@ public class InfillionAdManager {
             case AD_ERROR: // An ad error has occurred, forcing its closure
             case AD_COMPLETED: // The ad has completed.
             case NO_ADS_AVAILABLE: // No ads are available, resume playback of fallback ads.
+                if (viewGroup == null) {
+                    // Still pre-warming, report the completion once the ad is reached
+                    completedBeforeShow = true;
+                    break;
+                }
                 // Notify completion with credit status
                 completionCallback.onAdComplete(didReceiveCredit);
                 break;
@@ -219,9 +278,9 @@ public class InfillionAdManager {
      */
     private void onCancelStream(TruexAdEvent event, Map<String, ?> data) {
         if (didReceiveCredit) {
-            Log.i(CLASSTAG, "Cancelling stream with credit");
+            AppLog.i(CLASSTAG, "Cancelling stream with credit");
         } else {
-            Log.i(CLASSTAG, "Cancelling stream without credit");
+            AppLog.i(CLASSTAG, "Cancelling stream without credit");
         }
         if (completionCallback == null) {
             return;
@@ -0,0 +1,367 @@
+package com.truex.referenceapp.ads;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Loads ad schedules from an ad server, with an on-disk response cache.
+ *
+ * - Warm: a cached response younger than maxAgeMs is used without touching the network
+ * - Stale: an older cached response is used right away and revalidated in the background
+ *   (stale-while-revalidate), so playback never waits on a refetch
+ * - Cold: without a cached response the schedule is fetched before the callback is invoked
+ * - Coalesced: a cold load that arrives while the URL is being fetched waits on that fetch
+ *
+ * Revalidation is a conditional GET using the ETag and Last-Modified of the cached response, a
+ * 304 only refreshes the cache timestamp. If the fetch fails the cached response is used if there
+ * is one, otherwise the schedule is empty. The latency of each load is recorded in
+ * PlaybackMetrics by cache state.
+ */
+public class RemoteAdScheduleSource {
+    private static final String CLASSTAG = RemoteAdScheduleSource.class.getSimpleName();
+
+    private static final String CACHE_DIR_NAME = "ad_schedule_responses";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "lastModified";
+    private static final String META_FETCHED_AT = "fetchedAt";
+
+    // How long a cached schedule is used without revalidation
+    public static long maxAgeMs = 5 * 60 * 1000;
+
+    public static int connectTimeoutMs = 5000;
+    public static int readTimeoutMs = 10000;
+
+    private static RemoteAdScheduleSource instance;
+
+    private final Context context;
+    private final File cacheDir;
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(2);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Loads waiting on the fetch in flight for each URL; guarded by itself
+    private final Map<String, List<LoadRequest>> inFlightFetches = new HashMap<>();
+
+    /**
+     * How a load was served, each recorded into its own latency timer
+     */
+    private enum CacheState {
+        WARM(PlaybackMetrics.Timer.AD_SCHEDULE_WARM),
+        STALE(PlaybackMetrics.Timer.AD_SCHEDULE_STALE),
+        COLD(PlaybackMetrics.Timer.AD_SCHEDULE_COLD),
+        COALESCED(PlaybackMetrics.Timer.AD_SCHEDULE_COALESCED);
+
+        final PlaybackMetrics.Timer timer;
+
+        CacheState(PlaybackMetrics.Timer timer) {
+            this.timer = timer;
+        }
+    }
+
+    public static synchronized RemoteAdScheduleSource getInstance(Context context) {
+        if (instance == null) {
+            instance = new RemoteAdScheduleSource(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    RemoteAdScheduleSource(Context context) {
+        this.context = context;
+        this.cacheDir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+    }
+
+    /**
+     * Load the ad schedule at the URL. The callback is invoked on the main thread, unless the
+     * returned future is cancelled first. The future is done once the schedule is handed to the
+     * main thread.
+     */
+    public Future<?> load(String url, AdProvider.LoadCallback callback) {
+        LoadRequest request = new LoadRequest(url, callback);
+        request.task = fetchExecutor.submit(() -> loadInBackground(request));
+        return request;
+    }
+
+    /**
+     * Returns how many loads are waiting on the fetch in flight for the URL
+     */
+    int getWaitingLoadCount(String url) {
+        synchronized (inFlightFetches) {
+            List<LoadRequest> waiting = inFlightFetches.get(url);
+            return waiting != null ? waiting.size() : 0;
+        }
+    }
+
+    private void loadInBackground(LoadRequest request) {
+        String url = request.url;
+        String key = cacheKey(url);
+        CachedResponse cached = readCachedResponse(key);
+
+        if (cached == null) {
+            fetch(url, key, null, request);
+            return;
+        }
+
+        boolean stale = System.currentTimeMillis() - cached.fetchedAtMs > maxAgeMs;
+        request.deliver(parse(key, cached.bodyFile), stale ? CacheState.STALE : CacheState.WARM);
+        if (stale) {
+            fetch(url, key, cached, null);
+        }
+    }
+
+    /**
+     * Fetch the schedule, or join the fetch already in flight for the URL
+     *
+     * @param request - the load waiting on the fetch, or null to only refresh the cache
+     */
+    private void fetch(String url, String key, CachedResponse cached, LoadRequest request) {
+        synchronized (inFlightFetches) {
+            List<LoadRequest> waiting = inFlightFetches.get(url);
+            if (waiting != null) {
+                if (request != null && !request.cancelled) {
+                    waiting.add(request);
+                }
+                return;
+            }
+            waiting = new ArrayList<>();
+            if (request != null && !request.cancelled) {
+                waiting.add(request);
+            }
+            inFlightFetches.put(url, waiting);
+        }
+
+        File bodyFile = null;
+        try {
+            bodyFile = request(url, key, cached);
+        } catch (IOException | RuntimeException e) {
+            AppLog.w(CLASSTAG, "Error fetching ad schedule {}", url, e);
+            if (cached != null) {
+                bodyFile = cached.bodyFile;
+            }
+        }
+
+        List<LoadRequest> waiting;
+        synchronized (inFlightFetches) {
+            waiting = inFlightFetches.remove(url);
+        }
+        if (waiting.isEmpty()) {
+            return;
+        }
+        List<AdBreak> adBreaks = bodyFile != null ? parse(key, bodyFile) : Collections.<AdBreak>emptyList();
+        for (LoadRequest waitingRequest : waiting) {
+            // Only the load that started the fetch waited for all of it
+            waitingRequest.deliver(adBreaks, waitingRequest == request ? CacheState.COLD : CacheState.COALESCED);
+        }
+    }
+
+    /**
+     * Issue the (conditional) GET and update the cache. Returns the file holding the current schedule.
+     */
+    private File request(String url, String key, CachedResponse cached) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setUseCaches(false);
+            if (cached != null) {
+                if (cached.etag != null) {
+                    connection.setRequestProperty("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                AppLog.d(CLASSTAG, "Ad schedule not modified: {}", url);
+                writeMeta(key, cached.etag, cached.lastModified);
+                return cached.bodyFile;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response " + responseCode);
+            }
+
+            // Streamed straight to the cache, the schedule is parsed from (or mapped in place of) the file
+            File bodyFile = new File(cacheDir, key + ".json");
+            try (InputStream input = connection.getInputStream()) {
+                writeAtomically(bodyFile, input);
+            }
+            writeMeta(key, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+            return bodyFile;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private List<AdBreak> parse(String key, File bodyFile) {
+        return new AdProvider(context, "url-" + key, bodyFile).getAllAdBreaks();
+    }
+
+    private CachedResponse readCachedResponse(String key) {
+        File bodyFile = new File(cacheDir, key + ".json");
+        File metaFile = new File(cacheDir, key + ".properties");
+        if (!bodyFile.exists() || !metaFile.exists()) {
+            return null;
+        }
+        try {
+            Properties meta = new Properties();
+            try (InputStream input = new FileInputStream(metaFile)) {
+                meta.load(input);
+            }
+            CachedResponse cached = new CachedResponse();
+            cached.bodyFile = bodyFile;
+            cached.etag = meta.getProperty(META_ETAG);
+            cached.lastModified = meta.getProperty(META_LAST_MODIFIED);
+            cached.fetchedAtMs = Long.parseLong(meta.getProperty(META_FETCHED_AT, "0"));
+            return cached;
+        } catch (IOException | NumberFormatException e) {
+            AppLog.w(CLASSTAG, "Error reading cached ad schedule", e);
+            return null;
+        }
+    }
+
+    private void writeMeta(String key, String etag, String lastModified) {
+        Properties meta = new Properties();
+        if (etag != null) {
+            meta.setProperty(META_ETAG, etag);
+        }
+        if (lastModified != null) {
+            meta.setProperty(META_LAST_MODIFIED, lastModified);
+        }
+        meta.setProperty(META_FETCHED_AT, String.valueOf(System.currentTimeMillis()));
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            meta.store(output, null);
+            writeAtomically(new File(cacheDir, key + ".properties"), new ByteArrayInputStream(output.toByteArray()));
+        } catch (IOException e) {
+            AppLog.w(CLASSTAG, "Error writing cached ad schedule metadata", e);
+        }
+    }
+
+    /**
+     * Write the file through a temp file of its own and rename it into place, so readers and
+     * concurrent writers never see a partially written file
+     */
+    private void writeAtomically(File file, InputStream data) throws IOException {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            throw new IOException("Cannot create " + cacheDir);
+        }
+        File tempFile = File.createTempFile(file.getName(), ".tmp", cacheDir);
+        try (OutputStream output = new FileOutputStream(tempFile)) {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = data.read(buffer)) != -1) {
+                output.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    private static String cacheKey(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                key.append(String.format("%02x", hash[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    /**
+     * One caller's load. Cancelling it drops its callback, even while it waits on a fetch shared
+     * with other loads; the fetch itself carries on for them and for the cache.
+     */
+    private class LoadRequest extends FutureTask<Void> {
+        final String url;
+        final AdProvider.LoadCallback callback;
+        final long startNs = System.nanoTime();
+        volatile Future<?> task;
+
+        // Checked on the main thread, where loads are cancelled, right before calling back
+        private volatile boolean cancelled;
+
+        LoadRequest(String url, AdProvider.LoadCallback callback) {
+            // Never run, the load is completed by deliver()
+            super(() -> null);
+            this.url = url;
+            this.callback = callback;
+        }
+
+        void deliver(List<AdBreak> adBreaks, CacheState cacheState) {
+            if (cancelled) {
+                return;
+            }
+            long latencyMs = (System.nanoTime() - startNs) / 1000000L;
+            AppLog.d(CLASSTAG, "Ad schedule ready ({}) in {}ms", cacheState, latencyMs);
+            mainHandler.post(() -> {
+                if (!cancelled) {
+                    PlaybackMetrics.getInstance().record(cacheState.timer, latencyMs);
+                    callback.onAdBreaksLoaded(adBreaks);
+                }
+            });
+            set(null);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            synchronized (inFlightFetches) {
+                List<LoadRequest> waiting = inFlightFetches.get(url);
+                if (waiting != null) {
+                    waiting.remove(this);
+                }
+            }
+            Future<?> loadTask = task;
+            if (loadTask != null) {
+                // Never interrupted, the fetch may be shared
+                loadTask.cancel(false);
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    private static class CachedResponse {
+        File bodyFile;
+        String etag;
+        String lastModified;
+        long fetchedAtMs;
+    }
+}
@@ -0,0 +1,228 @@
+package com.truex.referenceapp.ads;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.truex.adrenderer.IEventEmitter;
+import com.truex.adrenderer.TruexAdEvent;
+import com.truex.adrenderer.TruexAdRenderer;
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a TruexAdRenderer ready for the next ad, instead of every ad creating its renderer when
+ * the ad is reached.
+ *
+ * The renderer's WebView needs an activity context, so there is one pool per activity and it is
+ * dropped when its activity is destroyed. The pool holds one standby renderer that has never been
+ * used and hands it out with acquire(), then creates the next standby once the main thread is
+ * idle. A renderer cannot be initialized again after stop(), so a released renderer is stopped
+ * and discarded rather than reused. Listeners must be added through the Lease, which removes them
+ * again on release, so nothing from the previous ad (e.g. a fragment's method reference) stays
+ * attached.
+ *
+ * Turn off usePooling to create a renderer when each ad is reached, e.g. to compare the
+ * RENDERER_SETUP timer. Must only be used from the main thread.
+ */
+public class TruexAdRendererPool {
+    private static final String CLASSTAG = TruexAdRendererPool.class.getSimpleName();
+
+    public static boolean usePooling = true;
+
+    interface RendererFactory {
+        TruexAdRenderer create(Context activityContext);
+    }
+
+    // Replaced in tests
+    static RendererFactory rendererFactory = TruexAdRenderer::new;
+
+    private static final Map<Activity, TruexAdRendererPool> pools = new HashMap<>();
+
+    /**
+     * A renderer checked out of the pool for a single ad
+     */
+    public static class Lease {
+        private TruexAdRenderer renderer;
+        private boolean stopped;
+        private final List<TruexAdEvent> listenerEvents = new ArrayList<>();
+        private final List<IEventEmitter.IEventHandler> listenerHandlers = new ArrayList<>();
+
+        private Lease(TruexAdRenderer renderer) {
+            this.renderer = renderer;
+        }
+
+        /**
+         * Get the leased renderer, or null once the lease has been released
+         */
+        public TruexAdRenderer getRenderer() {
+            return renderer;
+        }
+
+        /**
+         * Add an event listener that is removed when the lease is released
+         *
+         * @param event - the event to listen to, or null for all events
+         */
+        public void addEventListener(TruexAdEvent event, IEventEmitter.IEventHandler handler) {
+            renderer.addEventListener(event, handler);
+            listenerEvents.add(event);
+            listenerHandlers.add(handler);
+        }
+
+        /**
+         * Stop the leased renderer, e.g. when the app is stopped. Stopping more than once, or
+         * releasing the lease afterwards, does not stop the renderer again.
+         */
+        public void stop() {
+            if (renderer != null && !stopped) {
+                stopped = true;
+                renderer.stop();
+            }
+        }
+
+        private void removeEventListeners() {
+            for (int i = 0; i < listenerEvents.size(); i++) {
+                renderer.removeEventListener(listenerEvents.get(i), listenerHandlers.get(i));
+            }
+            listenerEvents.clear();
+            listenerHandlers.clear();
+        }
+    }
+
+    private final Activity activity;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable prepareStandby = this::prepareStandby;
+    private TruexAdRenderer standbyRenderer;
+
+    /**
+     * Get the pool of the activity that shows the ads
+     *
+     * @param context - the activity, or a context wrapping it
+     */
+    public static TruexAdRendererPool getInstance(Context context) {
+        Activity activity = findActivity(context);
+        TruexAdRendererPool pool = pools.get(activity);
+        if (pool == null) {
+            pool = new TruexAdRendererPool(activity);
+            pools.put(activity, pool);
+        }
+        return pool;
+    }
+
+    private TruexAdRendererPool(Activity activity) {
+        this.activity = activity;
+        activity.getApplication().registerActivityLifecycleCallbacks(new ActivityCallbacks());
+        if (usePooling) {
+            mainHandler.post(prepareStandby);
+        }
+    }
+
+    /**
+     * Check out a renderer for the next ad. Release it with release() once the ad is done.
+     */
+    public Lease acquire() {
+        long startNs = System.nanoTime();
+        TruexAdRenderer renderer = standbyRenderer;
+        standbyRenderer = null;
+        boolean prepared = renderer != null;
+        if (renderer == null) {
+            renderer = rendererFactory.create(activity);
+        }
+        long setupMs = (System.nanoTime() - startNs) / 1000000L;
+        PlaybackMetrics.getInstance().record(PlaybackMetrics.Timer.RENDERER_SETUP, setupMs);
+        AppLog.d(CLASSTAG, "Renderer acquired in {}ms, prepared: {}", setupMs, prepared);
+
+        if (usePooling) {
+            // Create the next standby after the current ad has been set up
+            mainHandler.removeCallbacks(prepareStandby);
+            mainHandler.post(prepareStandby);
+        }
+        return new Lease(renderer);
+    }
+
+    /**
+     * Stop the leased renderer, unless it already was, remove the listeners added through the
+     * lease and discard the renderer. Releasing a lease more than once does nothing.
+     */
+    public void release(Lease lease) {
+        if (lease.renderer == null) {
+            return;
+        }
+        lease.stop();
+        lease.removeEventListeners();
+        lease.renderer = null;
+    }
+
+    /**
+     * Drop the standby renderer, e.g. when the app is trimming memory.
+     * The next acquire() creates its renderer on the spot.
+     */
+    public void clear() {
+        mainHandler.removeCallbacks(prepareStandby);
+        standbyRenderer = null;
+    }
+
+    private void prepareStandby() {
+        if (standbyRenderer == null && usePooling && !activity.isFinishing()) {
+            standbyRenderer = rendererFactory.create(activity);
+        }
+    }
+
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        throw new IllegalArgumentException("TruexAdRenderer needs an activity context");
+    }
+
+    /**
+     * Drops the pool once its activity is destroyed
+     */
+    private class ActivityCallbacks implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityDestroyed(Activity destroyedActivity) {
+            if (destroyedActivity == activity) {
+                pools.remove(activity);
+                clear();
+                activity.getApplication().unregisterActivityLifecycleCallbacks(this);
+            }
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.truex.referenceapp.metrics;
+
+/**
+ * Fixed bucket histogram of millisecond values.
+ *
+ * All storage is allocated up front, recording a value only updates primitive fields.
+ */
+public class Histogram {
+    // Inclusive upper bound of each bucket; values above the last bound go into an overflow bucket
+    private static final long[] BUCKET_BOUNDS_MS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000
+    };
+
+    private final long[] bucketCounts = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long count;
+    private long sumMs;
+    private long minMs;
+    private long maxMs;
+
+    public void record(long valueMs) {
+        if (valueMs < 0) {
+            valueMs = 0;
+        }
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && valueMs > BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        bucketCounts[bucket]++;
+
+        if (count == 0 || valueMs < minMs) {
+            minMs = valueMs;
+        }
+        if (valueMs > maxMs) {
+            maxMs = valueMs;
+        }
+        sumMs += valueMs;
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSumMs() {
+        return sumMs;
+    }
+
+    public long getMinMs() {
+        return minMs;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public long getMeanMs() {
+        return count > 0 ? sumMs / count : 0;
+    }
+
+    /**
+     * Approximate percentile (0-100): the upper bound of the bucket containing it, capped at the max
+     */
+    public long getPercentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS_MS[i], maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    public int getBucketCount() {
+        return bucketCounts.length;
+    }
+
+    /**
+     * Upper bound of the bucket, or Long.MAX_VALUE for the overflow bucket
+     */
+    public long getBucketBoundMs(int bucket) {
+        return bucket < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[bucket] : Long.MAX_VALUE;
+    }
+
+    public long getBucketValueCount(int bucket) {
+        return bucketCounts[bucket];
+    }
+
+    public void reset() {
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = 0;
+        }
+        count = 0;
+        sumMs = 0;
+        minMs = 0;
+        maxMs = 0;
+    }
+}
@@ -0,0 +1,73 @@
+package com.truex.referenceapp.metrics;
+
+import android.util.JsonWriter;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes all timers (with their buckets) and counters to a JSON file, replacing previous contents.
+ * Pull the file off the device, e.g. with adb, for offline analysis.
+ */
+public class JsonFileMetricsExporter implements MetricsExporter {
+    private static final String CLASSTAG = JsonFileMetricsExporter.class.getSimpleName();
+
+    private final File file;
+
+    public JsonFileMetricsExporter(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void export(PlaybackMetrics metrics) {
+        try (JsonWriter writer = new JsonWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.setIndent("  ");
+            writer.beginObject();
+
+            writer.name("timers").beginObject();
+            for (PlaybackMetrics.Timer timer : PlaybackMetrics.Timer.values()) {
+                writeHistogram(writer, timer.name(), metrics.getHistogram(timer));
+            }
+            writer.endObject();
+
+            writer.name("counters").beginObject();
+            for (PlaybackMetrics.Counter counter : PlaybackMetrics.Counter.values()) {
+                writer.name(counter.name()).value(metrics.getCount(counter));
+            }
+            writer.endObject();
+
+            writer.endObject();
+            Log.d(CLASSTAG, "Metrics written to " + file);
+        } catch (IOException e) {
+            Log.e(CLASSTAG, "Failed to write metrics: " + e);
+        }
+    }
+
+    private static void writeHistogram(JsonWriter writer, String name, Histogram histogram) throws IOException {
+        writer.name(name).beginObject();
+        writer.name("count").value(histogram.getCount());
+        writer.name("sumMs").value(histogram.getSumMs());
+        writer.name("minMs").value(histogram.getMinMs());
+        writer.name("maxMs").value(histogram.getMaxMs());
+        writer.name("buckets").beginArray();
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            writer.beginObject();
+            long boundMs = histogram.getBucketBoundMs(i);
+            writer.name("leMs");
+            if (boundMs == Long.MAX_VALUE) {
+                writer.nullValue();
+            } else {
+                writer.value(boundMs);
+            }
+            writer.name("count").value(histogram.getBucketValueCount(i));
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+}
@@ -0,0 +1,28 @@
+package com.truex.referenceapp.metrics;
+
+import android.util.Log;
+
+/**
+ * Logs a one line summary per timer and counter
+ */
+public class LogcatMetricsExporter implements MetricsExporter {
+    private static final String CLASSTAG = LogcatMetricsExporter.class.getSimpleName();
+
+    @Override
+    public void export(PlaybackMetrics metrics) {
+        for (PlaybackMetrics.Timer timer : PlaybackMetrics.Timer.values()) {
+            Histogram histogram = metrics.getHistogram(timer);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            Log.d(CLASSTAG, timer + ": count=" + histogram.getCount()
+                + " mean=" + histogram.getMeanMs() + "ms"
+                + " p50=" + histogram.getPercentileMs(50) + "ms"
+                + " p95=" + histogram.getPercentileMs(95) + "ms"
+                + " max=" + histogram.getMaxMs() + "ms");
+        }
+        for (PlaybackMetrics.Counter counter : PlaybackMetrics.Counter.values()) {
+            Log.d(CLASSTAG, counter + ": " + metrics.getCount(counter));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.truex.referenceapp.metrics;
+
+/**
+ * Writes the recorded playback metrics somewhere for offline analysis
+ */
+public interface MetricsExporter {
+    void export(PlaybackMetrics metrics);
+}
@@ -0,0 +1,139 @@
+package com.truex.referenceapp.metrics;
+
+/**
+ * Latency timers and counters for ad pod playback.
+ *
+ * Timers measure with the monotonic System.nanoTime() clock and record into preallocated
+ * histograms, and counters are plain longs, so recording never allocates. Metrics are recorded
+ * from the main thread.
+ *
+ * Call export() with a MetricsExporter to write a summary, e.g. to logcat or a JSON file.
+ */
+public class PlaybackMetrics {
+    public enum Timer {
+        // How far past the cue point the ad break was detected
+        CUE_DETECTION,
+        // Ad pod media source set until its first frame is rendered
+        AD_START,
+        // Interactive ad shown until the renderer reports AD_DISPLAYED
+        OVERLAY_DISPLAY,
+        // End of an ad break until content is playing again
+        CONTENT_RESUME,
+        // Media item or ad transition until playback continues
+        TRANSITION_GAP,
+        // Player created until the first frame is rendered
+        TIME_TO_FIRST_FRAME,
+        // VAST response parsed until all of its wrapper chains are resolved
+        VAST_WRAPPER_RESOLVE,
+        // Time to hand out a TruexAdRenderer, prepared ahead or newly created
+        RENDERER_SETUP,
+        // Remote ad schedule requested until it is handed to the player, by response cache state:
+        // fresh cached copy, stale cached copy revalidated afterwards, fetched, and joined a fetch
+        // already in flight
+        AD_SCHEDULE_WARM,
+        AD_SCHEDULE_STALE,
+        AD_SCHEDULE_COLD,
+        AD_SCHEDULE_COALESCED
+    }
+
+    public enum Counter {
+        // Interactive ads ended by the failsafe timer
+        FAILSAFE_FIRED,
+        // Player went back to buffering after it had been ready
+        REBUFFER,
+        // Ads whose media duration did not match the schedule
+        AD_DURATION_MISMATCH,
+        // Unlock clicks served from the VAST ad pool, and ones that found it empty
+        VAST_POOL_HIT,
+        VAST_POOL_MISS,
+        // Pooled VAST ads that expired before they were used
+        VAST_POOL_STALE,
+        // VAST pre-fetches that added an ad to the pool, and ones that did not
+        VAST_POOL_FILL,
+        VAST_POOL_FILL_FAILED
+    }
+
+    private static final Timer[] TIMERS = Timer.values();
+    private static final Counter[] COUNTERS = Counter.values();
+    private static final long NOT_STARTED = -1;
+    private static final PlaybackMetrics instance = new PlaybackMetrics();
+
+    private final Histogram[] histograms = new Histogram[TIMERS.length];
+    private final long[] timerStartNs = new long[TIMERS.length];
+    private final long[] counters = new long[COUNTERS.length];
+
+    public static PlaybackMetrics getInstance() {
+        return instance;
+    }
+
+    private PlaybackMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+            timerStartNs[i] = NOT_STARTED;
+        }
+    }
+
+    /**
+     * Start (or restart) the timer
+     */
+    public void start(Timer timer) {
+        timerStartNs[timer.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Record the time since the timer was started. Does nothing if it is not running.
+     */
+    public void stop(Timer timer) {
+        long startNs = timerStartNs[timer.ordinal()];
+        if (startNs == NOT_STARTED) {
+            return;
+        }
+        timerStartNs[timer.ordinal()] = NOT_STARTED;
+        record(timer, (System.nanoTime() - startNs) / 1000000L);
+    }
+
+    public void cancel(Timer timer) {
+        timerStartNs[timer.ordinal()] = NOT_STARTED;
+    }
+
+    public boolean isRunning(Timer timer) {
+        return timerStartNs[timer.ordinal()] != NOT_STARTED;
+    }
+
+    /**
+     * Record a value measured elsewhere
+     */
+    public void record(Timer timer, long valueMs) {
+        histograms[timer.ordinal()].record(valueMs);
+    }
+
+    public void increment(Counter counter) {
+        counters[counter.ordinal()]++;
+    }
+
+    public void add(Counter counter, long amount) {
+        counters[counter.ordinal()] += amount;
+    }
+
+    public Histogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    public void export(MetricsExporter exporter) {
+        exporter.export(this);
+    }
+
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            timerStartNs[i] = NOT_STARTED;
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = 0;
+        }
+    }
+}
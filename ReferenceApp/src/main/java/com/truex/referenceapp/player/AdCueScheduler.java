@@ -0,0 +1,144 @@
+package com.truex.referenceapp.player;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.PlayerMessage;
+
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.ads.AdBreak;
+import com.truex.referenceapp.ads.AdManager;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Schedules ad break cue points on the content timeline using ExoPlayer player messages.
+ *
+ * Instead of polling the playback position, one PlayerMessage is registered per pending ad break
+ * at its timeOffset. The player delivers the message on the application thread when playback
+ * reaches that position, so midrolls start on time and nothing wakes up while content plays.
+ *
+ * A second message is registered prewarmLeadMs ahead of each cue so the listener can get the ad
+ * break ready (e.g. initialize its interactive ad renderer) before it starts.
+ *
+ * Messages are tied to the current content media source, so the scheduler must be re-armed each
+ * time content is (re)started. Seeks are handled by re-arming from the new position, see onSeek().
+ */
+@UnstableApi
+public class AdCueScheduler {
+    private static final String CLASSTAG = AdCueScheduler.class.getSimpleName();
+
+    private static final int MESSAGE_CUE = 0;
+    private static final int MESSAGE_PREWARM = 1;
+
+    // How far ahead of a cue point the ad break is pre-warmed
+    public static long prewarmLeadMs = 5000;
+
+    public interface Listener {
+        void onAdCueApproaching(AdBreak adBreak);
+        void onAdCue(AdBreak adBreak);
+    }
+
+    private final ExoPlayer player;
+    private final AdManager adManager;
+    private final Listener listener;
+    private final List<PlayerMessage> pendingMessages = new ArrayList<>();
+    private boolean armed;
+
+    public AdCueScheduler(ExoPlayer player, AdManager adManager, Listener listener) {
+        this.player = player;
+        this.adManager = adManager;
+        this.listener = listener;
+    }
+
+    /**
+     * Register a player message for every ad break still ahead of the current content position.
+     * Prerolls are not scheduled here, they are handled when playback starts.
+     */
+    public void arm() {
+        cancelMessages();
+        armed = true;
+
+        long positionMs = player.getCurrentPosition();
+        for (AdBreak adBreak : adManager.getUpcomingAdBreaks(positionMs)) {
+            if (adBreak.getTimeOffsetMs() <= 0) {
+                continue;
+            }
+            long prewarmPositionMs = adBreak.getTimeOffsetMs() - prewarmLeadMs;
+            if (prewarmPositionMs > positionMs) {
+                sendMessage(MESSAGE_PREWARM, adBreak, prewarmPositionMs);
+            }
+            sendMessage(MESSAGE_CUE, adBreak, adBreak.getTimeOffsetMs());
+        }
+        AppLog.d(CLASSTAG, "arm: {} cue points from {}ms", pendingMessages.size(), positionMs);
+    }
+
+    /**
+     * Cancel all scheduled cue points, e.g. while an ad break is playing
+     */
+    public void disarm() {
+        armed = false;
+        cancelMessages();
+    }
+
+    /**
+     * Call when the user seeks within the content
+     */
+    public void onSeek(long positionMs) {
+        if (!armed) {
+            return;
+        }
+
+        // Seeking onto (or just past) a cue point plays that break, matching the tolerance used for lookups
+        AdBreak adBreak = adManager.getAdBreakAt(positionMs);
+        if (adBreak != null && !adBreak.isStarted()) {
+            onCue(adBreak);
+            return;
+        }
+
+        // Messages behind the new position will never fire and ones skipped over must be re-created
+        arm();
+    }
+
+    private void sendMessage(int messageType, AdBreak adBreak, long positionMs) {
+        PlayerMessage message = player.createMessage(this::onMessage)
+            .setType(messageType)
+            .setPayload(adBreak)
+            .setPosition(positionMs)
+            .setLooper(player.getApplicationLooper())
+            .setDeleteAfterDelivery(true)
+            .send();
+        pendingMessages.add(message);
+    }
+
+    private void onMessage(int messageType, Object payload) {
+        AdBreak adBreak = (AdBreak) payload;
+        if (messageType == MESSAGE_PREWARM) {
+            if (armed && !adBreak.isStarted()) {
+                listener.onAdCueApproaching(adBreak);
+            }
+        } else {
+            onCue(adBreak);
+        }
+    }
+
+    private void onCue(AdBreak adBreak) {
+        if (!armed || adBreak.isStarted() || adBreak.isCompleted()) {
+            return;
+        }
+        long positionMs = player.getCurrentPosition();
+        AppLog.d(CLASSTAG, "Ad break cue at {}ms: {}", positionMs, adBreak.getBreakId());
+        PlaybackMetrics.getInstance().record(PlaybackMetrics.Timer.CUE_DETECTION,
+            Math.max(0, positionMs - adBreak.getTimeOffsetMs()));
+        disarm();
+        listener.onAdCue(adBreak);
+    }
+
+    private void cancelMessages() {
+        for (PlayerMessage message : pendingMessages) {
+            message.cancel();
+        }
+        pendingMessages.clear();
+    }
+}
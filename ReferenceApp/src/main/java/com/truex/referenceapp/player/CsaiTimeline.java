@@ -0,0 +1,95 @@
+package com.truex.referenceapp.player;
+
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.source.MediaSource;
+
+import com.truex.referenceapp.ads.AdBreak;
+import com.truex.referenceapp.ads.AdManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single player playlist with the content stream and the ad pods interleaved.
+ *
+ * The content is split into clips around each ad break timeOffset, and each ad break's pod is
+ * inserted between the clips:
+ *
+ *   [preroll pod] [content 0 - midroll] [midroll pod] [content midroll - end]
+ *
+ * Since everything is one playlist, the player buffers across the transitions. Entering and
+ * leaving a pod is a media item transition rather than a new media source, so the content keeps
+ * its position and buffer.
+ */
+@UnstableApi
+public class CsaiTimeline {
+    private final List<MediaSource> mediaSources = new ArrayList<>();
+
+    // The ad break played by each playlist item, null for content clips
+    private final List<AdBreak> itemAdBreaks = new ArrayList<>();
+
+    private final AdManager adManager;
+
+    /**
+     * @param contentSourceFactory - factory used to create the (clipped) content sources
+     * @param contentUri - the content stream
+     * @param adBreaks - the ad breaks to insert, sorted by timeOffset
+     * @param adManager - provides the media source of each ad break
+     */
+    public CsaiTimeline(MediaSource.Factory contentSourceFactory, String contentUri,
+                        List<AdBreak> adBreaks, AdManager adManager) {
+        this.adManager = adManager;
+        long contentStartMs = 0;
+        for (AdBreak adBreak : adBreaks) {
+            long offsetMs = Math.max(0, adBreak.getTimeOffsetMs());
+            if (offsetMs > contentStartMs) {
+                addContentClip(contentSourceFactory, contentUri, contentStartMs, offsetMs);
+                contentStartMs = offsetMs;
+            }
+            mediaSources.add(adManager.getMediaSource(adBreak));
+            itemAdBreaks.add(adBreak);
+        }
+        addContentClip(contentSourceFactory, contentUri, contentStartMs, C.TIME_END_OF_SOURCE);
+    }
+
+    public List<MediaSource> getMediaSources() {
+        return mediaSources;
+    }
+
+    /**
+     * Get the ad break played by the playlist item, or null if the item is a content clip
+     */
+    public AdBreak getAdBreak(int mediaItemIndex) {
+        if (mediaItemIndex < 0 || mediaItemIndex >= itemAdBreaks.size()) {
+            return null;
+        }
+        return itemAdBreaks.get(mediaItemIndex);
+    }
+
+    /**
+     * Update the ad offsets of every pod from the player's timeline, where each pod is one window
+     */
+    public void onTimelineChanged(Timeline timeline) {
+        for (int i = 0; i < itemAdBreaks.size(); i++) {
+            AdBreak adBreak = itemAdBreaks.get(i);
+            if (adBreak != null) {
+                adManager.onPodTimelineChanged(adBreak, timeline, i);
+            }
+        }
+    }
+
+    private void addContentClip(MediaSource.Factory factory, String contentUri, long startMs, long endMs) {
+        MediaItem mediaItem = new MediaItem.Builder()
+            .setUri(contentUri)
+            .setClippingConfiguration(new MediaItem.ClippingConfiguration.Builder()
+                .setStartPositionMs(startMs)
+                .setEndPositionMs(endMs)
+                .build())
+            .build();
+        mediaSources.add(factory.createMediaSource(mediaItem));
+        itemAdBreaks.add(null);
+    }
+}
@@ -5,4 +5,5 @@ public interface PlaybackStateListener {
     void onPlayerDidResume();
     void onPlayerDidPause();
     void onPlayerDidComplete();
+    void onPlayerDidRenderFirstFrame();
 }
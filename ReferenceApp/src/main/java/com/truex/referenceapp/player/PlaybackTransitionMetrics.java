@@ -0,0 +1,69 @@
+package com.truex.referenceapp.player;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+/**
+ * Tracks how smooth the transitions between content and ad pods are, recording into PlaybackMetrics.
+ *
+ * - REBUFFER: how often the player went back to buffering after it had been ready
+ * - TRANSITION_GAP: time from a media item or ad transition until the player is playing again
+ */
+public class PlaybackTransitionMetrics implements Player.Listener {
+    private final Player player;
+    private final PlaybackMetrics metrics = PlaybackMetrics.getInstance();
+
+    private boolean hasBeenReady;
+
+    public PlaybackTransitionMetrics(Player player) {
+        this.player = player;
+    }
+
+    @Override
+    public void onPlaybackStateChanged(int playbackState) {
+        if (playbackState == Player.STATE_READY) {
+            hasBeenReady = true;
+        } else if (playbackState == Player.STATE_BUFFERING && hasBeenReady) {
+            metrics.increment(PlaybackMetrics.Counter.REBUFFER);
+        }
+    }
+
+    @Override
+    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+        onTransition();
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                        @NonNull Player.PositionInfo newPosition,
+                                        int reason) {
+        // Moving from one ad to the next inside a pod
+        if (reason == Player.DISCONTINUITY_REASON_AUTO_TRANSITION
+                && oldPosition.mediaItemIndex == newPosition.mediaItemIndex) {
+            onTransition();
+        }
+    }
+
+    @Override
+    public void onIsPlayingChanged(boolean isPlaying) {
+        if (isPlaying) {
+            onPlaying();
+        }
+    }
+
+    private void onTransition() {
+        metrics.start(PlaybackMetrics.Timer.TRANSITION_GAP);
+        if (player.isPlaying()) {
+            // Seamless transition, the player never stopped
+            onPlaying();
+        }
+    }
+
+    private void onPlaying() {
+        metrics.stop(PlaybackMetrics.Timer.TRANSITION_GAP);
+    }
+}
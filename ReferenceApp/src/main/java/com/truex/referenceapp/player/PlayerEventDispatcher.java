@@ -0,0 +1,91 @@
+package com.truex.referenceapp.player;
+
+import androidx.annotation.NonNull;
+import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
+
+/**
+ * The single listener registered on the player(s) for content position and ad pod events.
+ *
+ * Instead of adding a new Player.Listener each time content resumes or a pod starts, the fragment
+ * registers this dispatcher once and switches its mode. Callbacks are routed depending on what is
+ * currently playing:
+ *
+ * CONTENT: user seeks are reported so cue points can be re-evaluated, as is content playing
+ * AD_POD: ad-to-ad transitions, the end of the pod and the pod's prepared timeline are reported
+ *         to drive the ad manager
+ *
+ * The same instance may be registered on both players in dual-player mode: the paused content
+ * player does not seek or transition while a pod plays, and the idle ad player does not end or
+ * transition while content plays.
+ */
+public class PlayerEventDispatcher implements Player.Listener {
+    public enum Mode {
+        CONTENT,
+        AD_POD
+    }
+
+    public interface Listener {
+        void onContentSeek(long positionMs);
+        void onContentPlaying();
+        void onAdPodItemCompleted();
+        void onAdPodTimelineChanged(Timeline timeline);
+        void onAdPodEnded();
+    }
+
+    private final Listener listener;
+    private Mode mode = Mode.CONTENT;
+
+    public PlayerEventDispatcher(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void onPlaybackStateChanged(int playbackState) {
+        if (mode == Mode.AD_POD && playbackState == Player.STATE_ENDED) {
+            // Report the end of the pod only once
+            mode = Mode.CONTENT;
+            listener.onAdPodEnded();
+        }
+    }
+
+    @Override
+    public void onIsPlayingChanged(boolean isPlaying) {
+        if (mode == Mode.CONTENT && isPlaying) {
+            listener.onContentPlaying();
+        }
+    }
+
+    @Override
+    public void onTimelineChanged(@NonNull Timeline timeline, int reason) {
+        if (mode == Mode.AD_POD && !timeline.isEmpty()) {
+            listener.onAdPodTimelineChanged(timeline);
+        }
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                        @NonNull Player.PositionInfo newPosition,
+                                        int reason) {
+        switch (mode) {
+            case CONTENT:
+                if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+                    listener.onContentSeek(newPosition.positionMs);
+                }
+                break;
+            case AD_POD:
+                if (reason == Player.DISCONTINUITY_REASON_AUTO_TRANSITION) {
+                    listener.onAdPodItemCompleted();
+                }
+                break;
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.truex.referenceapp.player;
 
-import android.util.Log;
-
 import androidx.media3.common.PlaybackException;
 import androidx.media3.common.Player;
 
+import com.truex.referenceapp.AppLog;
+
 /**
  * This class simply listens for playback events and informs the listeners when any playback events
  * occur. Additionally, this class cancels the video stream when and if any playback errors occur.
@@ -24,7 +24,7 @@ public class PlayerEventListener implements Player.Listener {
         // Just report errors, don't cancel the stream, as there can be spurious MediaCodecVideoRenderer exceptions
         // for simple .mp4 streams, even from videos playing in a web view, not technically even related to
         // the current player instance.
-        Log.e(CLASSTAG, "onPlayerError: " + error);
+        AppLog.e(CLASSTAG, "onPlayerError: {}", error);
     }
 
     @Override
@@ -42,6 +42,11 @@ public class PlayerEventListener implements Player.Listener {
         }
     }
 
+    @Override
+    public void onRenderedFirstFrame() {
+        listener.onPlayerDidRenderFirstFrame();
+    }
+
     @Override
     public void onPlaybackStateChanged(int playbackState) {
         if (playbackState == Player.STATE_ENDED) {
@@ -4,39 +4,88 @@ import android.app.Activity;
 import android.content.pm.ActivityInfo;
 import android.net.Uri;
 import android.os.Bundle;
-import android.util.Log;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.common.util.Util;
 import androidx.media3.datasource.DataSource;
 import androidx.media3.datasource.DefaultDataSource;
 import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.exoplayer.DefaultLoadControl;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
 import androidx.media3.exoplayer.source.MediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
 import androidx.media3.ui.PlayerView;
 
+import com.truex.referenceapp.AppLog;
 import com.truex.referenceapp.R;
 import com.truex.referenceapp.ads.AdBreak;
 import com.truex.referenceapp.ads.AdManager;
 import com.truex.referenceapp.ads.AdProvider;
+import com.truex.referenceapp.metrics.JsonFileMetricsExporter;
+import com.truex.referenceapp.metrics.LogcatMetricsExporter;
+import com.truex.referenceapp.metrics.MetricsExporter;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
 
 @UnstableApi
-public class PlayerFragment extends Fragment implements PlaybackStateListener, AdManager.AdBreakListener {
+public class PlayerFragment extends Fragment implements PlaybackStateListener, AdManager.AdBreakListener,
+        AdCueScheduler.Listener, PlayerEventDispatcher.Listener {
     private static final String CLASSTAG = "PlayerFragment";
     private static final String CONTENT_STREAM_URL = "https://ctv.truex.com/assets/reference-app-stream-no-ads-720p.mp4";
 
+    // Play content and ad pods from one interleaved playlist instead of swapping media sources.
+    // Transitions are then gapless and content keeps its position and buffer across ad breaks.
+    public static boolean useSingleTimeline = false;
+
+    // Play ad pods on a second player that is prepared ahead of the cue point, while the content
+    // player keeps its buffer. Ignored when useSingleTimeline is set.
+    public static boolean useDualPlayer = false;
+
+    // Buffer limits of the ad player, so the extra player stays within a small memory budget
+    public static int adPlayerMinBufferMs = 5000;
+    public static int adPlayerMaxBufferMs = 15000;
+    public static int adPlayerBufferForPlaybackMs = 1000;
+    public static int adPlayerBufferForPlaybackAfterRebufferMs = 2000;
+    public static int adPlayerTargetBufferBytes = 8 * 1024 * 1024;
+
+    // Fetch the ad schedule from this ad server URL instead of the bundled adbreaks_stub resource
+    public static String adScheduleUrl = null;
+
+    // Parse the bundled ad schedule on a background thread while the content prepares. Turn off to
+    // parse it on the main thread in onViewCreated() as before, e.g. to compare TIME_TO_FIRST_FRAME.
+    public static boolean loadAdScheduleAsync = true;
+
+    interface PlayerFactory {
+        ExoPlayer build(ExoPlayer.Builder builder);
+    }
+
+    // Replaced in tests
+    static PlayerFactory playerFactory = ExoPlayer.Builder::build;
+
     // This player view is used to display a fake stream that mimics actual video content
     private PlayerView playerView;
     private ExoPlayer player;
 
+    // Second player for ad pods, only used with useDualPlayer
+    private ExoPlayer adPlayer;
+    private MediaSource preparedAdSource;
+    private boolean adPlayerActive;
+
     // The data-source factory is used to build media-sources
     private DataSource.Factory dataSourceFactory;
 
@@ -45,12 +94,31 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
     // Ad pod management
     private AdManager adManager;
-    private AdProvider adProvider;
 
-    // Position tracking for midroll detection
-    private long lastCheckedPositionMs = -1;
-    private android.os.Handler positionCheckHandler;
-    private Runnable positionCheckRunnable;
+    // The ad schedule is parsed in the background while the content stream prepares
+    private Future<?> adScheduleLoad;
+    private boolean adScheduleReady;
+
+    // Write the playback metrics to a JSON file in the app's files dir when the player closes
+    public static boolean exportMetricsToFile = false;
+    private static final String METRICS_FILE_NAME = "playback_metrics.json";
+    private final List<MetricsExporter> metricsExporters = new ArrayList<>();
+    private final PlaybackMetrics metrics = PlaybackMetrics.getInstance();
+
+    // Used to report how long the ad schedule took to load
+    private long viewCreatedAtMs;
+
+    // Cue point scheduling for midroll detection
+    private AdCueScheduler adCueScheduler;
+
+    // Routes player callbacks to content or ad pod handling, registered once per player
+    private final PlayerEventDispatcher playerEventDispatcher = new PlayerEventDispatcher(this);
+
+    // Interleaved content and ad pod playlist, only used with useSingleTimeline
+    private CsaiTimeline csaiTimeline;
+
+    // Rebuffer count and transition gap between content and ads
+    private PlaybackTransitionMetrics transitionMetrics;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -76,20 +144,23 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
     @Override
     public void onViewCreated(View view, Bundle savedInstanceState) {
-        Log.d(CLASSTAG, "onViewCreated");
+        AppLog.d(CLASSTAG, "onViewCreated");
         super.onViewCreated(view, savedInstanceState);
+        viewCreatedAtMs = SystemClock.elapsedRealtime();
+        metrics.start(PlaybackMetrics.Timer.TIME_TO_FIRST_FRAME);
+        setupMetricsExporters();
 
         setupExoPlayer();
         setupDataSourceFactory();
-        setupAdProvider();
         setupAdManager();
+        setupAdProvider();
         preloadContentStream();
         displayContentStream();
     }
 
     @Override
     public void onResume() {
-        Log.d(CLASSTAG, "onResume");
+        AppLog.d(CLASSTAG, "onResume");
         super.onResume();
 
         // Forward to ad manager for any active ads
@@ -97,11 +168,9 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
             adManager.onResume();
         }
 
-        // Resume video playback (but not during interactive ads)
-        if (player != null && (adManager == null || !adManager.isPlayingInteractiveAd())) {
-            player.setPlayWhenReady(true);
-            // Restart position checking for content playback
-            startPositionChecking();
+        // Resume video playback (but not during interactive ads, or before the ad schedule is known)
+        if (player != null && adScheduleReady && (adManager == null || !adManager.isPlayingInteractiveAd())) {
+            currentPlayer().setPlayWhenReady(true);
         }
     }
 
@@ -109,9 +178,6 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
     public void onPause() {
         super.onPause();
 
-        // Stop position checking when paused
-        stopPositionChecking();
-
         // Forward to ad manager for any active ads
         if (adManager != null) {
             adManager.onPause();
@@ -119,7 +185,7 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
         // Pause video playback (but not during interactive ads)
         if (player != null && (adManager == null || !adManager.isPlayingInteractiveAd())) {
-            player.setPlayWhenReady(false);
+            currentPlayer().setPlayWhenReady(false);
         }
     }
 
@@ -127,8 +193,17 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
     public void onDestroy() {
         super.onDestroy();
 
-        // Stop position checking
-        stopPositionChecking();
+        // Drop the ad schedule if it is still being parsed
+        if (adScheduleLoad != null) {
+            adScheduleLoad.cancel(false);
+            adScheduleLoad = null;
+        }
+
+        // Stop cue point scheduling
+        if (adCueScheduler != null) {
+            adCueScheduler.disarm();
+            adCueScheduler = null;
+        }
 
         // Forward to ad manager for cleanup
         if (adManager != null) {
@@ -139,12 +214,27 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
         closeVideoPlayer();
     }
 
+    private void setupMetricsExporters() {
+        metricsExporters.clear();
+        metricsExporters.add(new LogcatMetricsExporter());
+        if (exportMetricsToFile && getContext() != null) {
+            metricsExporters.add(new JsonFileMetricsExporter(new File(requireContext().getFilesDir(), METRICS_FILE_NAME)));
+        }
+    }
+
     private void closeVideoPlayer() {
+        for (MetricsExporter exporter : metricsExporters) {
+            metrics.export(exporter);
+        }
         if (player != null) {
             playerView.setPlayer(null);
             player.release();
             player = null;
         }
+        if (adPlayer != null) {
+            adPlayer.release();
+            adPlayer = null;
+        }
     }
 
     /**
@@ -152,12 +242,17 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
      * Check for preroll ad break
      */
     public void onPlayerDidStart() {
-        Log.d(CLASSTAG, "onPlayerDidStart");
+        AppLog.d(CLASSTAG, "onPlayerDidStart");
+
+        // The single timeline starts with the preroll pod itself
+        if (useSingleTimeline) {
+            return;
+        }
 
         // Check for preroll (timeOffset <= 0)
         AdBreak prerollBreak = adManager.getAdBreakAt(0);
         if (prerollBreak != null && !prerollBreak.isStarted()) {
-            Log.d(CLASSTAG, "Preroll detected, starting ad break");
+            AppLog.d(CLASSTAG, "Preroll detected, starting ad break");
             adManager.setCurrentAdBreak(prerollBreak);
             adManager.startAdBreak();
         }
@@ -167,24 +262,36 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
      * Called when the media stream is resumed
      */
     public void onPlayerDidResume() {
-        Log.d(CLASSTAG, "onPlayerDidResume");
+        AppLog.d(CLASSTAG, "onPlayerDidResume");
     }
 
     /**
      * Called when the media stream is paused
      */
     public void onPlayerDidPause() {
-        Log.d(CLASSTAG, "onPlayerDidPause");
+        AppLog.d(CLASSTAG, "onPlayerDidPause");
     }
 
     /**
      * Called when the media stream is complete
      */
     public void onPlayerDidComplete() {
-        Log.d(CLASSTAG, "onPlayerDidComplete");
+        AppLog.d(CLASSTAG, "onPlayerDidComplete");
+    }
+
+    /**
+     * Called when a video frame is rendered for the first time after a media source is set
+     */
+    public void onPlayerDidRenderFirstFrame() {
+        // Each timer only records if it is running
+        metrics.stop(PlaybackMetrics.Timer.TIME_TO_FIRST_FRAME);
+        metrics.stop(PlaybackMetrics.Timer.AD_START);
     }
 
     private void preloadContentStream() {
+        // The single timeline creates its own content source along with the ad pods
+        if (useSingleTimeline) return;
+
         // Create and prepare content source in background
         Uri uri = Uri.parse(CONTENT_STREAM_URL);
         preloadedContentSource = new ProgressiveMediaSource.Factory(dataSourceFactory)
@@ -192,8 +299,14 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
     }
 
     private void displayContentStream() {
-        Log.d(CLASSTAG, "displayContentStream");
-        if (player == null || preloadedContentSource == null) return;
+        AppLog.d(CLASSTAG, "displayContentStream");
+        if (player == null) return;
+
+        playerEventDispatcher.setMode(PlayerEventDispatcher.Mode.CONTENT);
+        if (currentPlayer() != null && currentPlayer().isPlaying()) {
+            // Content continued seamlessly on the same timeline
+            onContentPlaying();
+        }
 
         // Restore player view visibility
         playerView.setVisibility(View.VISIBLE);
@@ -201,74 +314,67 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
         // Re-enable player controls for content playback
         playerView.setUseController(true);
 
-        // Use preloaded content source for faster startup
-        player.setPlayWhenReady(true);
+        if (csaiTimeline != null) {
+            // Content is already next in the playlist, nothing to (re)load
+            player.setPlayWhenReady(true);
+            return;
+        }
+
+        // The interleaved playlist is the first and only thing the player prepares, once the
+        // schedule it is built from is known (see displayCsaiTimeline())
+        if (useSingleTimeline) {
+            return;
+        }
+
+        if (adPlayer != null && player.getMediaItemCount() > 0) {
+            // Hand the surface back to the content player, which kept its position and buffer
+            switchToContentPlayer();
+            player.setPlayWhenReady(true);
+            if (adCueScheduler != null) {
+                adCueScheduler.arm();
+            }
+            return;
+        }
+
+        if (preloadedContentSource == null) return;
+
+        // Use preloaded content source for faster startup. Until the ad schedule is ready the content
+        // only prepares, so that the preroll check in onPlayerDidStart() sees the full schedule.
+        player.setPlayWhenReady(adScheduleReady);
         player.setMediaSource(preloadedContentSource);
         player.prepare();
 
-        // Add position tracking for midroll detection
-        addPositionTrackingListener();
-        startPositionChecking();
+        // Schedule the upcoming midroll cue points on the content timeline
+        if (adCueScheduler != null) {
+            adCueScheduler.arm();
+        }
     }
 
     /**
-     * Add a listener to track playback position and detect ad breaks
+     * Called by the cue scheduler shortly before content playback reaches an ad break timeOffset
      */
-    private void addPositionTrackingListener() {
-        player.addListener(new Player.Listener() {
-            @Override
-            public void onIsPlayingChanged(boolean isPlaying) {
-                if (isPlaying) {
-                    checkForAdBreak();
-                }
-            }
-
-            @Override
-            public void onPlaybackStateChanged(int playbackState) {
-                if (playbackState == Player.STATE_READY) {
-                    checkForAdBreak();
-                }
-            }
-        });
+    @Override
+    public void onAdCueApproaching(AdBreak adBreak) {
+        adManager.prewarmAdBreak(adBreak);
+        prepareAdPlayer(adBreak);
     }
 
     /**
-     * Check if current playback position matches an ad break timeOffset
+     * Called by the cue scheduler when content playback reaches an ad break timeOffset
      */
-    private void checkForAdBreak() {
-        if (player == null || adManager == null) {
-            return;
-        }
-
-        long currentPositionMs = player.getCurrentPosition();
-
-        // Only check if position has changed by at least 1 second
-        if (Math.abs(currentPositionMs - lastCheckedPositionMs) < 1000) {
-            return;
-        }
-
-        lastCheckedPositionMs = currentPositionMs;
-
-        // Check if we've hit an ad break timeOffset
-        AdBreak adBreak = adManager.getAdBreakAt(currentPositionMs);
-
-        if (adBreak != null && !adBreak.isStarted()) {
-            Log.d(CLASSTAG, "Ad break detected at " + currentPositionMs + "ms: " + adBreak.getBreakId());
-            // Stop position checking during ad break
-            stopPositionChecking();
-            // Pause content and start ad break
-            if (player != null) {
-                player.pause();
-            }
-            adManager.setCurrentAdBreak(adBreak);
-            adManager.startAdBreak();
-        }
+    @Override
+    public void onAdCue(AdBreak adBreak) {
+        AppLog.d(CLASSTAG, "Ad break detected at {}ms: {}", player.getCurrentPosition(), adBreak.getBreakId());
+        // Pause content and start ad break
+        player.pause();
+        adManager.setCurrentAdBreak(adBreak);
+        adManager.startAdBreak();
     }
 
     private void setupExoPlayer() {
         if (getContext() == null) return;
 
-        player = new ExoPlayer.Builder(requireContext()).build();
+        player = playerFactory.build(new ExoPlayer.Builder(requireContext()));
 
         if (getView() != null) {
             playerView = getView().findViewById(R.id.player_view);
@@ -277,8 +383,123 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
         // Listen for player events so that we can load the true[X] ad manager when the video stream starts
         player.addListener(new PlayerEventListener(this));
+        player.addListener(playerEventDispatcher);
+
+        transitionMetrics = new PlaybackTransitionMetrics(player);
+        player.addListener(transitionMetrics);
+
+        if (useSingleTimeline) {
+            player.addListener(csaiTimelineListener);
+        } else if (useDualPlayer) {
+            setupAdPlayer();
+        }
+    }
+
+    private void setupAdPlayer() {
+        DefaultLoadControl loadControl = new DefaultLoadControl.Builder()
+            .setBufferDurationsMs(adPlayerMinBufferMs, adPlayerMaxBufferMs,
+                adPlayerBufferForPlaybackMs, adPlayerBufferForPlaybackAfterRebufferMs)
+            .setTargetBufferBytes(adPlayerTargetBufferBytes)
+            .setPrioritizeTimeOverSizeThresholds(false)
+            .build();
+        adPlayer = playerFactory.build(new ExoPlayer.Builder(requireContext())
+            .setLoadControl(loadControl));
+        adPlayer.addListener(playerEventDispatcher);
+        adPlayer.addListener(new Player.Listener() {
+            @Override
+            public void onRenderedFirstFrame() {
+                onPlayerDidRenderFirstFrame();
+            }
+        });
+    }
+
+    /**
+     * Get the ad break's media source buffering on the ad player while content still plays
+     */
+    private void prepareAdPlayer(AdBreak adBreak) {
+        if (adPlayer == null) return;
+
+        MediaSource mediaSource = adManager.getMediaSource(adBreak);
+        if (mediaSource == preparedAdSource) return;
+
+        AppLog.d(CLASSTAG, "Preparing ad player for {}", adBreak.getBreakId());
+        preparedAdSource = mediaSource;
+        adPlayer.setPlayWhenReady(false);
+        adPlayer.setMediaSource(mediaSource);
+        adPlayer.prepare();
+    }
+
+    private void switchToAdPlayer() {
+        player.setPlayWhenReady(false);
+        playerView.setPlayer(adPlayer);
+        adPlayerActive = true;
+    }
+
+    private void switchToContentPlayer() {
+        adPlayer.stop();
+        preparedAdSource = null;
+        playerView.setPlayer(player);
+        adPlayerActive = false;
     }
 
+    /**
+     * The player currently attached to the player view
+     */
+    private ExoPlayer currentPlayer() {
+        return adPlayerActive ? adPlayer : player;
+    }
+
+    /**
+     * Drives the ad manager from playlist transitions when content and ads share one timeline
+     */
+    private final Player.Listener csaiTimelineListener = new Player.Listener() {
+        @Override
+        public void onTimelineChanged(@NonNull Timeline timeline, int reason) {
+            if (csaiTimeline != null) {
+                csaiTimeline.onTimelineChanged(timeline);
+            }
+        }
+
+        @Override
+        public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
+                                            @NonNull Player.PositionInfo newPosition,
+                                            int reason) {
+            if (csaiTimeline == null || reason != Player.DISCONTINUITY_REASON_AUTO_TRANSITION) {
+                return;
+            }
+            if (csaiTimeline.getAdBreak(oldPosition.mediaItemIndex) == null) {
+                return;
+            }
+            if (oldPosition.mediaItemIndex == newPosition.mediaItemIndex) {
+                // Next ad within the pod
+                adManager.onMediaItemCompleted();
+            } else {
+                // Played past the last ad of the pod
+                adManager.onPlaybackEnded();
+            }
+        }
+
+        @Override
+        public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+            if (csaiTimeline == null) {
+                return;
+            }
+            int mediaItemIndex = player.getCurrentMediaItemIndex();
+            AdBreak adBreak = csaiTimeline.getAdBreak(mediaItemIndex);
+            if (adBreak == null) {
+                return;
+            }
+            if (adBreak.isStarted() || adBreak.isCompleted()) {
+                // Don't replay ad breaks, e.g. when seeking back over them
+                player.seekTo(mediaItemIndex + 1, 0);
+                return;
+            }
+            AppLog.d(CLASSTAG, "Entering ad break: {}", adBreak.getBreakId());
+            adManager.setCurrentAdBreak(adBreak);
+            adManager.startAdBreak();
+        }
+    };
+
     private void setupDataSourceFactory() {
         if (getContext() == null) return;
 
@@ -294,7 +515,57 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
     private void setupAdProvider() {
         if (getContext() == null) return;
 
-        adProvider = new AdProvider(getContext(), R.raw.adbreaks_stub);
+        if (adScheduleUrl != null) {
+            adScheduleLoad = AdProvider.loadAsync(getContext(), adScheduleUrl, this::onAdScheduleLoaded);
+        } else if (!loadAdScheduleAsync) {
+            onAdScheduleLoaded(new AdProvider(getContext(), R.raw.adbreaks_stub).getAllAdBreaks());
+        } else {
+            adScheduleLoad = AdProvider.loadAsync(getContext(), R.raw.adbreaks_stub, this::onAdScheduleLoaded);
+        }
+    }
+
+    private void onAdScheduleLoaded(List<AdBreak> adBreaks) {
+        adScheduleLoad = null;
+        if (player == null || adManager == null) return;
+
+        AppLog.d(CLASSTAG, "Ad schedule ready after {}ms", SystemClock.elapsedRealtime() - viewCreatedAtMs);
+        adScheduleReady = true;
+
+        // Set the ad playlist from VMAP data
+        adManager.setAdPlaylist(adBreaks);
+
+        // The preroll is due as soon as playback starts, get its interactive ad ready now
+        AdBreak prerollBreak = adManager.getAdBreakAt(0);
+        if (prerollBreak != null && !prerollBreak.isStarted()) {
+            adManager.prewarmAdBreak(prerollBreak);
+            prepareAdPlayer(prerollBreak);
+        }
+
+        if (useSingleTimeline) {
+            displayCsaiTimeline();
+            return;
+        }
+        if (adCueScheduler != null) {
+            adCueScheduler.arm();
+        }
+
+        // Content has been preparing in the meantime, start it now (and with it the preroll check)
+        if (isResumed()) {
+            player.setPlayWhenReady(true);
+        }
+    }
+
+    /**
+     * Replace the content stream with the interleaved content and ad pod playlist
+     */
+    private void displayCsaiTimeline() {
+        AppLog.d(CLASSTAG, "displayCsaiTimeline");
+        csaiTimeline = new CsaiTimeline(new DefaultMediaSourceFactory(dataSourceFactory), CONTENT_STREAM_URL,
+            adManager.getUpcomingAdBreaks(0), adManager);
+
+        player.setMediaSources(csaiTimeline.getMediaSources());
+        player.prepare();
+        player.setPlayWhenReady(isResumed());
     }
 
     private void setupAdManager() {
@@ -302,71 +573,116 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
         ViewGroup adViewGroup = (ViewGroup) getView().findViewById(R.id.player_layout);
         adManager = new AdManager(getContext(), this, adViewGroup, dataSourceFactory);
-
-        // Set the ad playlist from VMAP data
-        adManager.setAdPlaylist(adProvider.getAllAdBreaks());
+        if (!useSingleTimeline) {
+            adCueScheduler = new AdCueScheduler(player, adManager, this);
+        }
     }
 
     // AdManager.AdBreakListener implementation
 
     @Override
     public void playMediaSource(MediaSource mediaSource) {
-        Log.d(CLASSTAG, "playMediaSource");
+        AppLog.d(CLASSTAG, "playMediaSource");
         if (player == null) return;
 
+        // Cue points belong to the content timeline, stop scheduling while the ad pod plays
+        if (adCueScheduler != null) {
+            adCueScheduler.disarm();
+        }
+
         // Disable player controls during ad playback
         playerView.setUseController(false);
 
+        if (csaiTimeline != null) {
+            // The pod is already playing as part of the playlist
+            playerView.setVisibility(View.VISIBLE);
+            return;
+        }
+
         // Play the media source
-        player.setPlayWhenReady(true);
-        player.setMediaSource(mediaSource);
-        player.prepare();
+        metrics.start(PlaybackMetrics.Timer.AD_START);
+        ExoPlayer podPlayer = adPlayer != null ? adPlayer : player;
+        if (adPlayer != null) {
+            // The pod has usually been buffering on the ad player since shortly before its cue point
+            if (mediaSource != preparedAdSource) {
+                adPlayer.setMediaSource(mediaSource);
+                adPlayer.prepare();
+            }
+            preparedAdSource = null;
+            switchToAdPlayer();
+        } else {
+            player.setMediaSource(mediaSource);
+            player.prepare();
+        }
+        podPlayer.setPlayWhenReady(true);
         playerView.setVisibility(View.VISIBLE);
 
-        player.addListener(new Player.Listener() {
-            @Override
-            public void onPlaybackStateChanged(int playbackState) {
-                if (playbackState != Player.STATE_ENDED) {
-                    return;
-                }
+        // Ad transitions and the end of the pod now drive the ad manager
+        playerEventDispatcher.setMode(PlayerEventDispatcher.Mode.AD_POD);
 
-                player.removeListener(this);
-                adManager.onPlaybackEnded();
-            }
+        // A pod pre-buffered on the ad player reported its timeline before it was switched to
+        if (!podPlayer.getCurrentTimeline().isEmpty()) {
+            onAdPodTimelineChanged(podPlayer.getCurrentTimeline());
+        }
+    }
 
-            @Override
-            public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition,
-                                                @NonNull Player.PositionInfo newPosition,
-                                                int reason) {
-                if (reason == Player.DISCONTINUITY_REASON_AUTO_TRANSITION) {
-                    adManager.onMediaItemCompleted();
-                }
-            }
-        });
+    // PlayerEventDispatcher.Listener implementation
+
+    @Override
+    public void onContentSeek(long positionMs) {
+        if (adCueScheduler != null) {
+            adCueScheduler.onSeek(positionMs);
+        }
+    }
+
+    @Override
+    public void onContentPlaying() {
+        metrics.stop(PlaybackMetrics.Timer.CONTENT_RESUME);
+    }
+
+    @Override
+    public void onAdPodItemCompleted() {
+        adManager.onMediaItemCompleted();
+    }
+
+    @Override
+    public void onAdPodTimelineChanged(Timeline timeline) {
+        adManager.onPodTimelineChanged(timeline, currentPlayer().getCurrentMediaItemIndex());
+    }
+
+    @Override
+    public void onAdPodEnded() {
+        adManager.onPlaybackEnded();
     }
 
     @Override
     public void controlPlayer(AdManager.PlayerAction action, long seekPositionMs) {
-        Log.d(CLASSTAG, "controlPlayer: " + action + ", seekPosition: " + seekPositionMs);
+        AppLog.d(CLASSTAG, "controlPlayer: {}, seekPosition: {}", action, seekPositionMs);
         if (player == null) return;
 
+        ExoPlayer activePlayer = currentPlayer();
         switch (action) {
             case PLAY:
                 playerView.hideController();
-                player.setPlayWhenReady(true);
+                activePlayer.setPlayWhenReady(true);
                 playerView.setVisibility(View.VISIBLE);
                 break;
             case SEEK_AND_PAUSE:
                 playerView.setVisibility(View.INVISIBLE);
-                player.seekTo(seekPositionMs);
-                player.setPlayWhenReady(false);
+                activePlayer.seekTo(seekPositionMs);
+                activePlayer.setPlayWhenReady(false);
                 break;
         }
     }
 
     @Override
     public void onSkipToContent() {
-        Log.d(CLASSTAG, "onSkipToContent");
+        AppLog.d(CLASSTAG, "onSkipToContent");
+        metrics.start(PlaybackMetrics.Timer.CONTENT_RESUME);
+        if (csaiTimeline != null && player != null) {
+            // Skip the rest of the pod by jumping to the content clip that follows it
+            player.seekTo(player.getCurrentMediaItemIndex() + 1, 0);
+        }
         // When credit is earned, we need to fully switch back to content stream
         // not just resume the ad player, otherwise ExoPlayer will continue with next ad
         displayContentStream();
@@ -374,39 +690,9 @@ public class PlayerFragment extends Fragment implements PlaybackStateListener, A
 
     @Override
     public void onAdBreakComplete() {
-        Log.d(CLASSTAG, "onAdBreakComplete");
+        AppLog.d(CLASSTAG, "onAdBreakComplete");
+        metrics.start(PlaybackMetrics.Timer.CONTENT_RESUME);
         // Ad break completed normally, display content stream
         displayContentStream();
     }
-
-    /**
-     * Start periodic position checking
-     */
-    private void startPositionChecking() {
-        stopPositionChecking(); // Stop any existing checker first
-
-        positionCheckHandler = new android.os.Handler();
-        positionCheckRunnable = new Runnable() {
-            @Override
-            public void run() {
-                checkForAdBreak();
-                // Check every 500ms during content playback
-                if (positionCheckHandler != null) {
-                    positionCheckHandler.postDelayed(this, 500);
-                }
-            }
-        };
-        positionCheckHandler.post(positionCheckRunnable);
-    }
-
-    /**
-     * Stop periodic position checking
-     */
-    private void stopPositionChecking() {
-        if (positionCheckHandler != null && positionCheckRunnable != null) {
-            positionCheckHandler.removeCallbacks(positionCheckRunnable);
-            positionCheckRunnable = null;
-            positionCheckHandler = null;
-        }
-    }
-}
+}
\ No newline at end of file
@@ -20,30 +20,33 @@ import com.truex.adrenderer.TruexAdEvent;
 import com.truex.adrenderer.TruexAdOptions;
 import com.truex.adrenderer.TruexAdRenderer;
 import com.truex.referenceapp.R;
+import com.truex.referenceapp.ads.TruexAdRendererPool;
+import com.truex.referenceapp.vast.AdParameters;
+import com.truex.referenceapp.vast.VastAd;
+import com.truex.referenceapp.vast.VastAdPool;
 
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.xmlpull.v1.XmlPullParser;
-import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlPullParserFactory;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.ArrayList;
+
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 public class UnlockFragment extends Fragment implements View.OnClickListener {
     private static final String CLASSTAG = UnlockFragment.class.getSimpleName();
+    private TruexAdRendererPool rendererPool;
+    private TruexAdRendererPool.Lease rendererLease;
     private TruexAdRenderer truexAdRenderer;
     private Context context;
-    private Map vastMap = null;
-    private Boolean vastReady = false;
-    private final String AD_SERVER = "https://get.truex.com/22c36d3926383ba62994809a60b4649e3ced1070/vast/solo?dimension_2=1&stream_position=midroll&stream_id=[stream_id]&network_user_id=[user_id]";
+    private static final String AD_SERVER = "https://get.truex.com/22c36d3926383ba62994809a60b4649e3ced1070/vast/solo?dimension_2=1&stream_position=midroll&stream_id=[stream_id]&network_user_id=[user_id]";
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        // Keep ads from the ad server warm in the VastAdPool, so unlocking never waits on the network.
+        // This should be pointing to your ad server, where a true[X] ad is booked.
+        VastAdPool.getInstance().start(UnlockFragment::getAdUrl);
+    }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -58,10 +61,6 @@ public class UnlockFragment extends Fragment implements View.OnClickListener {
         Activity activity = getActivity();
         activity.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_SENSOR_LANDSCAPE);
 
-        // Helper function to fetch ad to vastMap
-        // This should be pointing to your ad server, where a true[X] ad is booked.
-        fetchAd(AD_SERVER);
-
         return view;
     }
 
@@ -89,32 +88,20 @@ public class UnlockFragment extends Fragment implements View.OnClickListener {
             return;
         }
 
-        if (!vastReady) {
+        // [1] - Integration Doc/Notes
+        // Here we use a fake ad manager, which parses the VAST XML with VastParser, resolves
+        // wrapper ads with VastWrapperResolver and only pools the resolved true[X] ads.
+        VastAd currentAd = VastAdPool.getInstance().acquire();
+        if (currentAd == null) {
             toast("Not Ready-- Downloading VAST");
             return;
         }
 
-        // [1] - Integration Doc/Notes
-        // Here we use a fake ad manager, which parse the VAST XML directly into a Map.
         try {
-            // Just checking the 1st ad here to simplify the flow in this example
-            // currentAd = vastMap["Ad"][0]["InLine"][0];
-            Map currentAd = get(get(vastMap, "Ad", 0), "InLine", 0);
-            // adSystem = currentAd["AdSystem"][0]["CDATA"];
-            String adSystem = (String)get(currentAd, "AdSystem", 0).get("CDATA");
-            Boolean isTruexAd = (adSystem.startsWith("trueX"));
-
-            if (isTruexAd) {
-                // creative = currentAd["Creatives"][0]["Creative"][0];
-                Map creative = get(get(currentAd, "Creatives", 0), "Creative", 0);
-                // adParametersString = creative["Linear"][0]["AdParameters"][0]["CDATA"];
-                String adParametersString = (String)get(get(creative, "Linear", 0), "AdParameters", 0).get("CDATA");
-                JSONObject adParameters = new JSONObject(adParametersString);
-                startTruexAdRenderer(adParameters);
-            } else {
-                toast("Not true[X] ad");
-            }
-        } catch (Exception e) {
+            // The true[X] configuration is in the AdParameters of the linear creative
+            AdParameters adParameters = currentAd.getAdParameters();
+            startTruexAdRenderer(adParameters.toJSONObject());
+        } catch (JSONException e) {
             toast("Error parsing vastConfig response as JSON");
         }
     }
@@ -128,27 +115,26 @@ public class UnlockFragment extends Fragment implements View.OnClickListener {
 
     // MARK: - TrueX Ad Renderer
     private void startTruexAdRenderer(JSONObject vastConfigJSON) {
-        if (truexAdRenderer != null) {
-            truexAdRenderer.stop();
-            truexAdRenderer = null;
-        }
-
-        // Set-up the true[X] ad renderer
-        truexAdRenderer = new TruexAdRenderer(getContext());
-
-        // Set-up the event listeners
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_FETCH_COMPLETED, this::adFetchCompleted);
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_STARTED, this::adStarted);
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_DISPLAYED, this::adDisplayed);
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_COMPLETED, this::adCompleted);
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_ERROR, this::adError);
-        truexAdRenderer.addEventListener(TruexAdEvent.NO_ADS_AVAILABLE, this::noAds);
-        truexAdRenderer.addEventListener(TruexAdEvent.AD_FREE_POD, this::adFree);
-        truexAdRenderer.addEventListener(TruexAdEvent.USER_CANCEL, this::userCancel);
-        truexAdRenderer.addEventListener(TruexAdEvent.OPT_IN, this::optIn);
-        truexAdRenderer.addEventListener(TruexAdEvent.OPT_OUT, this::optOut);
-        truexAdRenderer.addEventListener(TruexAdEvent.SKIP_CARD_SHOWN, this::skipCardShown);
-        truexAdRenderer.addEventListener(TruexAdEvent.POPUP_WEBSITE, this::popUp);
+        releaseTruexAdRenderer();
+
+        // Set-up the true[X] ad renderer, taking the one the pool has prepared when available
+        rendererPool = TruexAdRendererPool.getInstance(getActivity());
+        rendererLease = rendererPool.acquire();
+        truexAdRenderer = rendererLease.getRenderer();
+
+        // Set-up the event listeners, they are removed again when the renderer is released
+        rendererLease.addEventListener(TruexAdEvent.AD_FETCH_COMPLETED, this::adFetchCompleted);
+        rendererLease.addEventListener(TruexAdEvent.AD_STARTED, this::adStarted);
+        rendererLease.addEventListener(TruexAdEvent.AD_DISPLAYED, this::adDisplayed);
+        rendererLease.addEventListener(TruexAdEvent.AD_COMPLETED, this::adCompleted);
+        rendererLease.addEventListener(TruexAdEvent.AD_ERROR, this::adError);
+        rendererLease.addEventListener(TruexAdEvent.NO_ADS_AVAILABLE, this::noAds);
+        rendererLease.addEventListener(TruexAdEvent.AD_FREE_POD, this::adFree);
+        rendererLease.addEventListener(TruexAdEvent.USER_CANCEL, this::userCancel);
+        rendererLease.addEventListener(TruexAdEvent.OPT_IN, this::optIn);
+        rendererLease.addEventListener(TruexAdEvent.OPT_OUT, this::optOut);
+        rendererLease.addEventListener(TruexAdEvent.SKIP_CARD_SHOWN, this::skipCardShown);
+        rendererLease.addEventListener(TruexAdEvent.POPUP_WEBSITE, this::popUp);
 
         // init and start TruexAdRenderer
         TruexAdOptions options = new TruexAdOptions();
@@ -182,17 +168,28 @@ public class UnlockFragment extends Fragment implements View.OnClickListener {
     }
 
     /**
-     * Inform that the true[X] ad renderer that the application has been destroyed
+     * Inform that the true[X] ad renderer that the application has been destroyed, and stop
+     * pre-fetching ads for this fragment
      */
     @Override
     public void onDestroy() {
         Log.d(CLASSTAG, "onDestroy");
-        if (truexAdRenderer != null) {
-            truexAdRenderer.stop();
-        }
+        releaseTruexAdRenderer();
+        VastAdPool.getInstance().stop();
         super.onDestroy();
     }
 
+    /**
+     * Stop the true[X] ad renderer and release it, without any of our listeners
+     */
+    private void releaseTruexAdRenderer() {
+        if (rendererLease != null) {
+            rendererPool.release(rendererLease);
+            rendererLease = null;
+            truexAdRenderer = null;
+        }
+    }
+
     /**
      * Note: This event is triggered when the init call is finished, and the ad is fetched/ready
      */
@@ -313,102 +310,14 @@ public class UnlockFragment extends Fragment implements View.OnClickListener {
 
     // MARK: - Helper Functions / Fake Ad Framework
     // These are just helper code to make this sample work. Following are not part of the intergration
-    private void fetchAd(final String rawUrlString) {
-        String urlString = rawUrlString;
+    private static String getAdUrl() {
+        String urlString = AD_SERVER;
         // replacing user_id with random UUID here for testing, please use the real user ID from the system.
         // Usually this will be filled out by your ad server, or you will fill in your internal ID
         for (String s : Arrays.asList("[stream_id]", "[user_id]")) {
             urlString = urlString.replace(s, UUID.randomUUID().toString());
         }
-        fetchXmlToVastMap(urlString);
-    }
-
-    private void fetchXmlToVastMap(final String urlString) {
-        Runnable runnable = new Runnable() {
-            public void run() {
-                try {
-                    XmlPullParserFactory parserFactory = XmlPullParserFactory.newInstance();
-                    XmlPullParser parser = parserFactory.newPullParser();
-                    InputStream is = new URL(urlString).openStream();
-                    parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
-                    parser.setInput(is, null);
-
-                    int eventType = parser.getEventType();
-                    Map current = null;
-                    while (eventType != XmlPullParser.END_DOCUMENT) {
-                        String elementName = "";
-                        Map parent;
-                        switch (eventType) {
-                            case XmlPullParser.START_TAG:
-                                elementName = parser.getName();
-                                parent = current;
-
-                                current = new HashMap();
-                                int attributeCount = parser.getAttributeCount();
-                                for (int i = 0; i < attributeCount; i++) {
-                                    current.put(parser.getAttributeName(i), parser.getAttributeValue(i));
-                                }
-
-                                if (parent != null) {
-                                    current.put("parent", parent);
-                                    ArrayList siblings = (ArrayList) parent.get(elementName);
-                                    if (siblings == null) {
-                                        parent.put(elementName, new ArrayList());
-                                        siblings = (ArrayList) parent.get(elementName);
-                                    }
-                                    siblings.add(current);
-                                }
-
-                                // setting the root
-                                if (vastMap == null) {
-                                    vastMap = current;
-                                }
-                                break;
-
-                            case XmlPullParser.TEXT:
-                                current.put("CDATA", parser.getText());
-                                break;
-
-                            case XmlPullParser.END_TAG:
-                                if (current != null) {
-                                    parent = (Map) current.get("parent");
-                                    current.remove("parent");
-                                    current = parent;
-                                }
-                                break;
-
-                            default:
-                                Log.v(CLASSTAG, "default: " + XmlPullParser.TYPES[parser.getEventType()]);
-
-                        }
-                        eventType = parser.next();
-                    }
-                    vastReady = true;
-
-                    boolean DEBUG = false;
-                    if (DEBUG) {
-                        JSONObject json = new JSONObject(vastMap);
-                        Log.v(CLASSTAG, json.toString());
-                    }
-                } catch (Error | XmlPullParserException | MalformedURLException e) {
-                    e.printStackTrace();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        };
-        Thread asyncThread = new Thread(runnable);
-        asyncThread.start();
-    }
-
-    private Map get(Map map, String key, int index) {
-        if (map != null) {
-            ArrayList list = (ArrayList)map.get(key);
-            if (list != null) {
-                return (Map) list.get(index);
-            }
-        }
-        return null;
+        return urlString;
     }
 
     private void toast(String message) {
@@ -0,0 +1,30 @@
+package com.truex.referenceapp.vast;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The AdParameters of a linear creative. For true[X] ads the value is the ad renderer's JSON
+ * configuration.
+ */
+public class AdParameters {
+    private final String value;
+    private final boolean xmlEncoded;
+
+    public AdParameters(String value, boolean xmlEncoded) {
+        this.value = value;
+        this.xmlEncoded = xmlEncoded;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public boolean isXmlEncoded() {
+        return xmlEncoded;
+    }
+
+    public JSONObject toJSONObject() throws JSONException {
+        return new JSONObject(value);
+    }
+}
@@ -0,0 +1,22 @@
+package com.truex.referenceapp.vast;
+
+/**
+ * A VAST Creative, only the Linear AdParameters are kept
+ */
+public class Creative {
+    private final String id;
+    private final AdParameters adParameters;
+
+    public Creative(String id, AdParameters adParameters) {
+        this.id = id;
+        this.adParameters = adParameters;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AdParameters getAdParameters() {
+        return adParameters;
+    }
+}
@@ -0,0 +1,69 @@
+package com.truex.referenceapp.vast;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single InLine or Wrapper ad from a VAST response
+ */
+public class VastAd {
+    private final String id;
+    private final int sequence;
+    private final String adSystem;
+    private final boolean wrapper;
+    private final String vastAdTagUri;  // Wrapper ads only
+    private final List<Creative> creatives;
+
+    public VastAd(String id, int sequence, String adSystem, boolean wrapper, String vastAdTagUri,
+                  List<Creative> creatives) {
+        this.id = id;
+        this.sequence = sequence;
+        this.adSystem = adSystem;
+        this.wrapper = wrapper;
+        this.vastAdTagUri = vastAdTagUri;
+        this.creatives = Collections.unmodifiableList(creatives);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Position of the ad within a pod, or 0 if the ad is not part of a pod
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    public String getAdSystem() {
+        return adSystem;
+    }
+
+    public boolean isWrapper() {
+        return wrapper;
+    }
+
+    public String getVastAdTagUri() {
+        return vastAdTagUri;
+    }
+
+    public List<Creative> getCreatives() {
+        return creatives;
+    }
+
+    public boolean isTruexAd() {
+        return adSystem != null && adSystem.startsWith("trueX");
+    }
+
+    /**
+     * Get the AdParameters of the first linear creative that has them, or null
+     */
+    public AdParameters getAdParameters() {
+        for (Creative creative : creatives) {
+            if (creative.getAdParameters() != null) {
+                return creative.getAdParameters();
+            }
+        }
+        return null;
+    }
+}
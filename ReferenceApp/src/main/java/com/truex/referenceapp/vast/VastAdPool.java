@@ -0,0 +1,216 @@
+package com.truex.referenceapp.vast;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Keeps a few resolved, ready to render true[X] ads warm so the unlock flow never waits on the
+ * network.
+ *
+ * The pool fetches up to targetSize ads in the background with VastFetchService and
+ * VastWrapperResolver, keeping every true[X] ad of each response. Each pooled ad is only used
+ * within adTtlMs of being fetched, since the ad server's decision goes stale; the pool refills
+ * itself when the oldest ad expires. acquire() hands out the oldest fresh ad and refills the pool
+ * asynchronously. A failed fetch is retried after retryDelayMs, doubling up to maxRetryDelayMs,
+ * and the pool gives up after maxRetries failures in a row until the next acquire().
+ *
+ * Every start() must be paired with a stop(); pre-fetching stops when the last client stops.
+ * Hits, misses, expired ads and pre-fetch results are counted in PlaybackMetrics.
+ * The pool is app scoped and must only be used from the main thread.
+ */
+public class VastAdPool {
+    private static final String CLASSTAG = VastAdPool.class.getSimpleName();
+
+    public static int targetSize = 2;
+    public static long adTtlMs = 5 * 60 * 1000;
+    public static long retryDelayMs = 10 * 1000;
+    public static long maxRetryDelayMs = 5 * 60 * 1000;
+    public static int maxRetries = 5;
+
+    private static VastAdPool instance;
+
+    public interface AdUrlProvider {
+        /**
+         * Get the ad server URL for the next request, with its macros filled in
+         */
+        String getAdUrl();
+    }
+
+    private static class PooledAd {
+        final VastAd ad;
+        final long expiresAtMs;
+
+        PooledAd(VastAd ad, long expiresAtMs) {
+            this.ad = ad;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private final ArrayDeque<PooledAd> readyAds = new ArrayDeque<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable scheduledFill = this::fill;
+    private AdUrlProvider adUrlProvider;
+    private int clientCount;
+    private int consecutiveFailures;
+    private VastFetchService.Request pendingRequest;
+
+    public static VastAdPool getInstance() {
+        if (instance == null) {
+            instance = new VastAdPool();
+        }
+        return instance;
+    }
+
+    VastAdPool() {
+    }
+
+    /**
+     * Start keeping the pool filled with ads from the provider's ad server, until the matching
+     * stop(). The provider is held until the last client stops, so it must not reference a
+     * fragment or view.
+     */
+    public void start(AdUrlProvider adUrlProvider) {
+        clientCount++;
+        this.adUrlProvider = adUrlProvider;
+        consecutiveFailures = 0;
+        fill();
+    }
+
+    /**
+     * Stop pre-fetching once every client that started the pool has stopped it. Ads already
+     * pooled are kept until they expire, so a client that starts again soon (e.g. after a
+     * configuration change) finds them ready.
+     */
+    public void stop() {
+        if (clientCount == 0 || --clientCount > 0) {
+            return;
+        }
+        adUrlProvider = null;
+        mainHandler.removeCallbacks(scheduledFill);
+        if (pendingRequest != null) {
+            pendingRequest.cancel();
+            pendingRequest = null;
+        }
+    }
+
+    /**
+     * Take a fresh true[X] ad out of the pool, or null if none is ready yet.
+     * The pool is refilled in the background either way, even if it had given up retrying.
+     */
+    public VastAd acquire() {
+        evictExpired();
+        PooledAd pooledAd = readyAds.pollFirst();
+        PlaybackMetrics metrics = PlaybackMetrics.getInstance();
+        metrics.increment(pooledAd != null ? PlaybackMetrics.Counter.VAST_POOL_HIT : PlaybackMetrics.Counter.VAST_POOL_MISS);
+        fill();
+        return pooledAd != null ? pooledAd.ad : null;
+    }
+
+    public int getReadyCount() {
+        evictExpired();
+        return readyAds.size();
+    }
+
+    /**
+     * Fetch one more ad if the pool is below its target size. Fetches run one at a time, each
+     * completion starts the next until the pool is full. A full pool schedules the next fill for
+     * when its oldest ad expires.
+     */
+    private void fill() {
+        evictExpired();
+        if (adUrlProvider == null || pendingRequest != null) {
+            return;
+        }
+        if (readyAds.size() >= targetSize) {
+            scheduleFill(readyAds.peekFirst().expiresAtMs - SystemClock.elapsedRealtime());
+            return;
+        }
+        mainHandler.removeCallbacks(scheduledFill);
+
+        String url = adUrlProvider.getAdUrl();
+        pendingRequest = VastFetchService.getInstance().fetch(url,
+            stream -> VastWrapperResolver.getInstance().resolve(VastParser.parse(stream)),
+            new VastFetchService.Callback<VastDocument>() {
+                @Override
+                public void onSuccess(VastDocument document) {
+                    pendingRequest = null;
+                    onFetched(document);
+                }
+
+                @Override
+                public void onFailure(Exception error) {
+                    pendingRequest = null;
+                    onFillFailed();
+                }
+            });
+    }
+
+    private void onFetched(VastDocument document) {
+        // An ad pod response can hold several true[X] ads, all from the same ad decision
+        long expiresAtMs = SystemClock.elapsedRealtime() + adTtlMs;
+        int pooledCount = 0;
+        for (VastAd ad : document.getAds()) {
+            if (!ad.isWrapper() && ad.isTruexAd() && ad.getAdParameters() != null) {
+                readyAds.addLast(new PooledAd(ad, expiresAtMs));
+                pooledCount++;
+            }
+        }
+        if (pooledCount == 0) {
+            AppLog.d(CLASSTAG, "No true[X] ad in the VAST response");
+            onFillFailed();
+            return;
+        }
+
+        consecutiveFailures = 0;
+        PlaybackMetrics.getInstance().add(PlaybackMetrics.Counter.VAST_POOL_FILL, pooledCount);
+        AppLog.d(CLASSTAG, "Pooled {} ads, {} ready", pooledCount, readyAds.size());
+        fill();
+    }
+
+    private void onFillFailed() {
+        PlaybackMetrics.getInstance().increment(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED);
+        consecutiveFailures++;
+        if (consecutiveFailures > maxRetries) {
+            AppLog.d(CLASSTAG, "Giving up pre-fetching after {} failures", consecutiveFailures);
+            return;
+        }
+        // Back off instead of hammering an ad server that has nothing for us
+        scheduleFill(getRetryDelayMs(consecutiveFailures));
+    }
+
+    /**
+     * Delay before the retry after the given number of failures in a row
+     */
+    static long getRetryDelayMs(int failures) {
+        long delayMs = retryDelayMs;
+        for (int i = 1; i < failures && delayMs < maxRetryDelayMs; i++) {
+            delayMs *= 2;
+        }
+        return Math.min(delayMs, maxRetryDelayMs);
+    }
+
+    private void scheduleFill(long delayMs) {
+        mainHandler.removeCallbacks(scheduledFill);
+        if (adUrlProvider != null) {
+            mainHandler.postDelayed(scheduledFill, Math.max(delayMs, 0));
+        }
+    }
+
+    private void evictExpired() {
+        long nowMs = SystemClock.elapsedRealtime();
+        Iterator<PooledAd> iterator = readyAds.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAtMs <= nowMs) {
+                iterator.remove();
+                PlaybackMetrics.getInstance().increment(PlaybackMetrics.Counter.VAST_POOL_STALE);
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.truex.referenceapp.vast;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parts of a VAST response used by the integration, see VastParser
+ */
+public class VastDocument {
+    private final String version;
+    private final List<VastAd> ads;
+
+    public VastDocument(String version, List<VastAd> ads) {
+        this.version = version;
+        this.ads = Collections.unmodifiableList(ads);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public List<VastAd> getAds() {
+        return ads;
+    }
+
+    /**
+     * Get the first ad in the response, or null if there are none
+     */
+    public VastAd getFirstAd() {
+        return ads.isEmpty() ? null : ads.get(0);
+    }
+}
@@ -0,0 +1,174 @@
+package com.truex.referenceapp.vast;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.truex.referenceapp.AppLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared service for fetching VAST responses off the main thread.
+ *
+ * Requests run on a small bounded thread pool with connect and read timeouts. Responses are read
+ * to the end and their streams closed without disconnecting, so HttpURLConnection returns the
+ * connection to its keep-alive pool for the next request to the same ad server.
+ *
+ * The response is parsed on the worker thread and the result is handed to the callback on the
+ * main thread, so callers can keep their state main-thread only. A cancelled request never calls
+ * back; cancel requests when their owner (e.g. a fragment) goes away.
+ */
+public class VastFetchService {
+    private static final String CLASSTAG = VastFetchService.class.getSimpleName();
+
+    private static final int THREAD_COUNT = 2;
+    private static final int MAX_QUEUED_REQUESTS = 16;
+
+    public static int connectTimeoutMs = 5000;
+    public static int readTimeoutMs = 10000;
+
+    private static VastFetchService instance;
+
+    public interface ResponseParser<T> {
+        T parse(InputStream stream) throws Exception;
+    }
+
+    public interface Callback<T> {
+        void onSuccess(T result);
+        void onFailure(Exception error);
+    }
+
+    /**
+     * Handle of a request in flight
+     */
+    public static class Request {
+        private volatile boolean cancelled;
+        private volatile HttpURLConnection connection;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+            HttpURLConnection activeConnection = connection;
+            if (activeConnection != null) {
+                // Unblocks a read in progress
+                activeConnection.disconnect();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+        30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static synchronized VastFetchService getInstance() {
+        if (instance == null) {
+            instance = new VastFetchService();
+        }
+        return instance;
+    }
+
+    private VastFetchService() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetch and parse the URL in the background. The callback is invoked on the main thread.
+     */
+    public <T> Request fetch(String url, ResponseParser<T> parser, Callback<T> callback) {
+        Request request = new Request();
+        try {
+            request.future = executor.submit(() -> {
+                try {
+                    T result = fetchNow(url, parser, request);
+                    deliver(request, () -> callback.onSuccess(result));
+                } catch (Exception e) {
+                    if (!request.isCancelled()) {
+                        AppLog.w(CLASSTAG, "Error fetching {}", url, e);
+                    }
+                    deliver(request, () -> callback.onFailure(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deliver(request, () -> callback.onFailure(e));
+        }
+        return request;
+    }
+
+    /**
+     * Fetch and parse the URL on the calling thread, which must not be the main thread
+     *
+     * @param request - the request whose cancellation aborts the fetch, may be null
+     */
+    public <T> T fetchNow(String url, ResponseParser<T> parser, Request request) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (request != null) {
+            request.connection = connection;
+        }
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                // Drain the error body so the connection can still be reused
+                drainAndClose(connection.getErrorStream());
+                throw new IOException("Unexpected response " + responseCode + " for " + url);
+            }
+
+            InputStream stream = connection.getInputStream();
+            try {
+                T result = parser.parse(stream);
+                drain(stream);
+                return result;
+            } finally {
+                stream.close();
+            }
+        } finally {
+            if (request != null) {
+                request.connection = null;
+            }
+        }
+    }
+
+    private void deliver(Request request, Runnable delivery) {
+        mainHandler.post(() -> {
+            if (!request.isCancelled()) {
+                delivery.run();
+            }
+        });
+    }
+
+    private static void drain(InputStream stream) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (stream.read(buffer) != -1) {
+            // Discard whatever the parser did not read
+        }
+    }
+
+    private static void drainAndClose(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            drain(stream);
+            stream.close();
+        } catch (IOException ignored) {
+            // The connection will not be reused
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.truex.referenceapp.vast;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser for VAST responses.
+ *
+ * Reads the document with an XmlPullParser and only materializes the elements the integration
+ * uses: each Ad's id and sequence, its AdSystem, the VASTAdTagURI of wrappers and the
+ * AdParameters of linear creatives. Every other element, e.g. tracking events, media files and
+ * companions, is skipped without allocating anything for it.
+ */
+public class VastParser {
+    private static XmlPullParserFactory parserFactory;
+
+    private VastParser() {
+    }
+
+    /**
+     * Parse the VAST response from the stream. The stream is not closed.
+     */
+    public static VastDocument parse(InputStream stream) throws XmlPullParserException, IOException {
+        XmlPullParser parser = newPullParser();
+        parser.setInput(stream, null);
+
+        parser.next();
+        skipToStartTag(parser);
+        parser.require(XmlPullParser.START_TAG, null, "VAST");
+        String version = parser.getAttributeValue(null, "version");
+
+        List<VastAd> ads = new ArrayList<>();
+        while (nextChildTag(parser)) {
+            if ("Ad".equals(parser.getName())) {
+                VastAd ad = readAd(parser);
+                if (ad != null) {
+                    ads.add(ad);
+                }
+            } else {
+                skip(parser);
+            }
+        }
+        return new VastDocument(version, ads);
+    }
+
+    private static synchronized XmlPullParser newPullParser() throws XmlPullParserException {
+        if (parserFactory == null) {
+            parserFactory = XmlPullParserFactory.newInstance();
+        }
+        XmlPullParser parser = parserFactory.newPullParser();
+        parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+        return parser;
+    }
+
+    private static VastAd readAd(XmlPullParser parser) throws XmlPullParserException, IOException {
+        String id = parser.getAttributeValue(null, "id");
+        int sequence = parseInt(parser.getAttributeValue(null, "sequence"));
+
+        VastAd ad = null;
+        while (nextChildTag(parser)) {
+            String name = parser.getName();
+            if (ad == null && ("InLine".equals(name) || "Wrapper".equals(name))) {
+                ad = readAdBody(parser, id, sequence, "Wrapper".equals(name));
+            } else {
+                skip(parser);
+            }
+        }
+        return ad;
+    }
+
+    private static VastAd readAdBody(XmlPullParser parser, String id, int sequence, boolean wrapper)
+            throws XmlPullParserException, IOException {
+        String adSystem = null;
+        String vastAdTagUri = null;
+        List<Creative> creatives = new ArrayList<>();
+
+        while (nextChildTag(parser)) {
+            switch (parser.getName()) {
+                case "AdSystem":
+                    adSystem = readText(parser);
+                    break;
+                case "VASTAdTagURI":
+                    vastAdTagUri = readText(parser);
+                    break;
+                case "Creatives":
+                    readCreatives(parser, creatives);
+                    break;
+                default:
+                    skip(parser);
+                    break;
+            }
+        }
+        return new VastAd(id, sequence, adSystem, wrapper, vastAdTagUri, creatives);
+    }
+
+    private static void readCreatives(XmlPullParser parser, List<Creative> creatives)
+            throws XmlPullParserException, IOException {
+        while (nextChildTag(parser)) {
+            if ("Creative".equals(parser.getName())) {
+                creatives.add(readCreative(parser));
+            } else {
+                skip(parser);
+            }
+        }
+    }
+
+    private static Creative readCreative(XmlPullParser parser) throws XmlPullParserException, IOException {
+        String id = parser.getAttributeValue(null, "id");
+        AdParameters adParameters = null;
+
+        while (nextChildTag(parser)) {
+            if ("Linear".equals(parser.getName())) {
+                while (nextChildTag(parser)) {
+                    if ("AdParameters".equals(parser.getName())) {
+                        boolean xmlEncoded = "true".equals(parser.getAttributeValue(null, "xmlEncoded"));
+                        adParameters = new AdParameters(readText(parser), xmlEncoded);
+                    } else {
+                        skip(parser);
+                    }
+                }
+            } else {
+                skip(parser);
+            }
+        }
+        return new Creative(id, adParameters);
+    }
+
+    /**
+     * Advance to the next child start tag of the current element.
+     * Returns false, positioned on the element's end tag, once there are no more children.
+     */
+    private static boolean nextChildTag(XmlPullParser parser) throws XmlPullParserException, IOException {
+        while (true) {
+            int eventType = parser.next();
+            if (eventType == XmlPullParser.START_TAG) {
+                return true;
+            }
+            if (eventType == XmlPullParser.END_TAG || eventType == XmlPullParser.END_DOCUMENT) {
+                return false;
+            }
+        }
+    }
+
+    private static void skipToStartTag(XmlPullParser parser) throws XmlPullParserException, IOException {
+        while (parser.getEventType() != XmlPullParser.START_TAG) {
+            if (parser.getEventType() == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Missing VAST element");
+            }
+            parser.next();
+        }
+    }
+
+    /**
+     * Read the trimmed text of the current element, CDATA sections included, ending on its end tag
+     */
+    private static String readText(XmlPullParser parser) throws XmlPullParserException, IOException {
+        StringBuilder text = null;
+        String single = null;
+        int eventType;
+        while ((eventType = parser.next()) != XmlPullParser.END_TAG) {
+            if (eventType == XmlPullParser.START_TAG) {
+                skip(parser);
+            } else if (eventType == XmlPullParser.TEXT) {
+                if (single == null) {
+                    single = parser.getText();
+                } else {
+                    if (text == null) {
+                        text = new StringBuilder(single);
+                    }
+                    text.append(parser.getText());
+                }
+            } else if (eventType == XmlPullParser.END_DOCUMENT) {
+                throw new XmlPullParserException("Unexpected end of document");
+            }
+        }
+        String value = text != null ? text.toString() : single;
+        return value != null ? value.trim() : null;
+    }
+
+    /**
+     * Skip the current element and all of its children, ending on its end tag
+     */
+    private static void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (parser.next()) {
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.END_DOCUMENT:
+                    throw new XmlPullParserException("Unexpected end of document");
+            }
+        }
+    }
+
+    private static int parseInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
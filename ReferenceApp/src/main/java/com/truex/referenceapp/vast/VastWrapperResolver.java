@@ -0,0 +1,225 @@
+package com.truex.referenceapp.vast;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows Wrapper ads through their VASTAdTagURI chains until they reach InLine ads.
+ *
+ * When a response has several wrapper ads (e.g. an ad pod), each chain is resolved concurrently
+ * on the resolver's own threads. Those threads block on VastFetchService.fetchNow(), so they are
+ * kept separate from the fetch service's pool, which the root response is usually parsed on.
+ *
+ * Each Wrapper hop's parsed response is kept in a small LRU cache keyed by URL for hopCacheTtlMs,
+ * since ad servers often return the same wrapper chain for consecutive requests. A response with
+ * an InLine ad is never cached: it is the decision for one ad request, with its own impression
+ * and tracking URLs, and must be fetched again for every request. Chains deeper than
+ * maxWrapperDepth, and hops that fail, drop their ad instead of failing the whole response.
+ */
+public class VastWrapperResolver {
+    private static final String CLASSTAG = VastWrapperResolver.class.getSimpleName();
+
+    private static final int THREAD_COUNT = 4;
+    private static final int MAX_CACHED_HOPS = 32;
+
+    // Number of wrappers followed before an ad is dropped, the VAST recommendation is 5
+    public static int maxWrapperDepth = 5;
+    public static long hopCacheTtlMs = 60 * 1000;
+
+    private static VastWrapperResolver instance;
+
+    private static class CachedHop {
+        final VastDocument document;
+        final long expiresAtMs;
+
+        CachedHop(VastDocument document, long expiresAtMs) {
+            this.document = document;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+        30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Guarded by itself
+    private final Map<String, CachedHop> hopCache =
+        new LinkedHashMap<String, CachedHop>(MAX_CACHED_HOPS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedHop> eldest) {
+                return size() > MAX_CACHED_HOPS;
+            }
+        };
+
+    public static synchronized VastWrapperResolver getInstance() {
+        if (instance == null) {
+            instance = new VastWrapperResolver();
+        }
+        return instance;
+    }
+
+    private VastWrapperResolver() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Replace every Wrapper ad in the document with the InLine ads its chain resolves to.
+     * Blocks the calling thread, which must not be the main thread. Interrupting it cancels the
+     * chains still being resolved.
+     */
+    public VastDocument resolve(VastDocument document) throws InterruptedException {
+        List<VastAd> ads = document.getAds();
+        int wrapperCount = 0;
+        for (VastAd ad : ads) {
+            if (ad.isWrapper()) {
+                wrapperCount++;
+            }
+        }
+        if (wrapperCount == 0) {
+            return document;
+        }
+
+        long startMs = SystemClock.elapsedRealtime();
+        List<VastAd> resolvedAds = new ArrayList<>();
+        if (wrapperCount == 1) {
+            // Nothing to overlap, resolve on the calling thread
+            for (VastAd ad : ads) {
+                resolvedAds.addAll(resolveSafely(ad));
+            }
+        } else {
+            resolveConcurrently(ads, resolvedAds);
+        }
+
+        long resolveMs = SystemClock.elapsedRealtime() - startMs;
+        AppLog.d(CLASSTAG, "Resolved {} wrappers to {} ads in {}ms", wrapperCount, resolvedAds.size(), resolveMs);
+        // Metrics are only recorded from the main thread
+        mainHandler.post(() -> PlaybackMetrics.getInstance().record(PlaybackMetrics.Timer.VAST_WRAPPER_RESOLVE, resolveMs));
+        return new VastDocument(document.getVersion(), resolvedAds);
+    }
+
+    public void clearCache() {
+        synchronized (hopCache) {
+            hopCache.clear();
+        }
+    }
+
+    private void resolveConcurrently(List<VastAd> ads, List<VastAd> resolvedAds) throws InterruptedException {
+        List<Future<List<VastAd>>> futures = new ArrayList<>(ads.size());
+        for (VastAd ad : ads) {
+            if (ad.isWrapper()) {
+                futures.add(executor.submit(() -> resolveSafely(ad)));
+            } else {
+                futures.add(null);
+            }
+        }
+
+        try {
+            // Collect in document order so the pod sequence is kept
+            for (int i = 0; i < ads.size(); i++) {
+                Future<List<VastAd>> future = futures.get(i);
+                if (future == null) {
+                    resolvedAds.add(ads.get(i));
+                    continue;
+                }
+                try {
+                    resolvedAds.addAll(future.get());
+                } catch (ExecutionException e) {
+                    AppLog.w(CLASSTAG, "Error resolving wrapper {}", ads.get(i).getId(), e.getCause());
+                }
+            }
+        } finally {
+            for (Future<List<VastAd>> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    private List<VastAd> resolveSafely(VastAd ad) {
+        try {
+            return resolveAd(ad, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            AppLog.w(CLASSTAG, "Dropping ad {}, its wrapper chain could not be resolved", ad.getId(), e);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<VastAd> resolveAd(VastAd ad, int depth) throws Exception {
+        if (!ad.isWrapper()) {
+            return Collections.singletonList(ad);
+        }
+        if (depth >= maxWrapperDepth) {
+            throw new IOException("Wrapper chain deeper than " + maxWrapperDepth);
+        }
+        String url = ad.getVastAdTagUri();
+        if (url == null || url.isEmpty()) {
+            throw new IOException("Wrapper without a VASTAdTagURI");
+        }
+
+        List<VastAd> resolvedAds = new ArrayList<>();
+        for (VastAd wrappedAd : fetchHop(url).getAds()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            resolvedAds.addAll(resolveAd(wrappedAd, depth + 1));
+        }
+        return resolvedAds;
+    }
+
+    private VastDocument fetchHop(String url) throws Exception {
+        long nowMs = SystemClock.elapsedRealtime();
+        synchronized (hopCache) {
+            CachedHop cachedHop = hopCache.get(url);
+            if (cachedHop != null) {
+                if (cachedHop.expiresAtMs > nowMs) {
+                    AppLog.d(CLASSTAG, "Wrapper hop cache hit: {}", url);
+                    return cachedHop.document;
+                }
+                hopCache.remove(url);
+            }
+        }
+
+        VastDocument document = VastFetchService.getInstance().fetchNow(url, VastParser::parse, null);
+        if (isWrapperOnly(document)) {
+            synchronized (hopCache) {
+                hopCache.put(url, new CachedHop(document, SystemClock.elapsedRealtime() + hopCacheTtlMs));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Whether the hop only points on to further hops. Empty responses (no fill) are not cached either.
+     */
+    private static boolean isWrapperOnly(VastDocument document) {
+        List<VastAd> ads = document.getAds();
+        if (ads.isEmpty()) {
+            return false;
+        }
+        for (VastAd ad : ads) {
+            if (!ad.isWrapper()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.truex.referenceapp.ads;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.NoOpCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import com.truex.referenceapp.benchmark.Benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Measures how long the creatives of an ad pod take to start against a local ad CDN with 150ms of
+ * first-byte latency, with and without AdCreativePrefetcher having run ahead of the pod.
+ * "Start" is reading the first 256 KB of each creative through the cache, as the player would.
+ */
+@UnstableApi
+@RunWith(RobolectricTestRunner.class)
+public class AdCreativePrefetcherBenchmark {
+    private static final int POD_SIZE = 4;
+    private static final int CREATIVE_BYTES = 2 * 1024 * 1024;
+    private static final int START_BYTES = 256 * 1024;
+    private static final long FIRST_BYTE_LATENCY_MS = 150;
+
+    private Context context;
+    private LocalHttpServer server;
+    private final List<SimpleCache> caches = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        Benchmark.assumeEnabled();
+        context = RuntimeEnvironment.getApplication();
+        byte[] creative = new byte[CREATIVE_BYTES];
+        server = new LocalHttpServer(exchange -> {
+            LocalHttpServer.sleep(FIRST_BYTE_LATENCY_MS);
+            LocalHttpServer.respond(exchange, 200, creative);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        for (SimpleCache cache : caches) {
+            cache.release();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void podStartLatency() throws Exception {
+        AdBreak adBreak = adBreak();
+
+        CacheDataSource.Factory coldFactory = newCacheDataSourceFactory();
+        long coldMs = startPod(coldFactory, adBreak);
+
+        CacheDataSource.Factory warmFactory = newCacheDataSourceFactory();
+        AdCreativePrefetcher prefetcher = new AdCreativePrefetcher(warmFactory);
+        prefetcher.prefetch(adBreak);
+        prefetcher.awaitIdle(30_000);
+        long prefetchedMs = startPod(warmFactory, adBreak);
+        prefetcher.release();
+
+        Benchmark.report("pod start/cold", String.format(Locale.US, "%d ms for %d creatives", coldMs, POD_SIZE));
+        Benchmark.report("pod start/prefetched", String.format(Locale.US, "%d ms for %d creatives (%d KB prefetched)",
+            prefetchedMs, POD_SIZE, prefetcher.getBytesFetched() / 1024));
+    }
+
+    private long startPod(DataSource.Factory dataSourceFactory, AdBreak adBreak) throws Exception {
+        long startNs = System.nanoTime();
+        byte[] buffer = new byte[16 * 1024];
+        for (Ad ad : adBreak.getAds()) {
+            DataSource dataSource = dataSourceFactory.createDataSource();
+            try {
+                dataSource.open(new DataSpec(Uri.parse(ad.getAdUrl())));
+                int total = 0;
+                while (total < START_BYTES) {
+                    int count = dataSource.read(buffer, 0, buffer.length);
+                    if (count < 0) {
+                        break;
+                    }
+                    total += count;
+                }
+            } finally {
+                dataSource.close();
+            }
+        }
+        return (System.nanoTime() - startNs) / 1_000_000;
+    }
+
+    private CacheDataSource.Factory newCacheDataSourceFactory() {
+        File cacheDir = new File(context.getCacheDir(), "prefetcher-benchmark-" + UUID.randomUUID());
+        SimpleCache cache = new SimpleCache(cacheDir, new NoOpCacheEvictor(), new StandaloneDatabaseProvider(context));
+        caches.add(cache);
+        return new CacheDataSource.Factory()
+            .setCache(cache)
+            .setUpstreamDataSourceFactory(new DefaultHttpDataSource.Factory());
+    }
+
+    private AdBreak adBreak() {
+        List<Ad> ads = new ArrayList<>();
+        for (int i = 0; i < POD_SIZE; i++) {
+            ads.add(new Ad("GDFP", server.url("/creative-" + i + ".mp4"), null, null, 30, "ad-" + i));
+        }
+        return new AdBreak("midroll", 60_000, ads);
+    }
+}
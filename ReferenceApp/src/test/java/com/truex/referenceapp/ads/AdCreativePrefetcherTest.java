@@ -0,0 +1,95 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.NoOpCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@UnstableApi
+@RunWith(RobolectricTestRunner.class)
+public class AdCreativePrefetcherTest {
+    private static final String CREATIVE_PATH = "/creative.mp4";
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private LocalHttpServer server;
+    private SimpleCache cache;
+    private AdCreativePrefetcher prefetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new LocalHttpServer(exchange -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                LocalHttpServer.respond(exchange, 503, null);
+            } else {
+                LocalHttpServer.respond(exchange, 200, new byte[64 * 1024]);
+            }
+        });
+
+        Context context = RuntimeEnvironment.getApplication();
+        File cacheDir = new File(context.getCacheDir(), "prefetcher-test-" + UUID.randomUUID());
+        cache = new SimpleCache(cacheDir, new NoOpCacheEvictor(), new StandaloneDatabaseProvider(context));
+        CacheDataSource.Factory dataSourceFactory = new CacheDataSource.Factory()
+            .setCache(cache)
+            .setUpstreamDataSourceFactory(new DefaultHttpDataSource.Factory());
+        prefetcher = new AdCreativePrefetcher(dataSourceFactory, 1000, 256_000);
+    }
+
+    @After
+    public void tearDown() {
+        prefetcher.release();
+        cache.release();
+        server.close();
+    }
+
+    @Test
+    public void failedCreativeIsRequestedAgain() throws Exception {
+        failuresLeft.set(1);
+        AdBreak adBreak = adBreak();
+
+        prefetcher.prefetch(adBreak);
+        prefetcher.awaitIdle(TIMEOUT_MS);
+        assertEquals(1, server.getRequestCount(CREATIVE_PATH));
+        assertEquals(0, prefetcher.getBytesFetched());
+
+        prefetcher.prefetch(adBreak);
+        prefetcher.awaitIdle(TIMEOUT_MS);
+        assertEquals(2, server.getRequestCount(CREATIVE_PATH));
+        assertEquals(32_000, prefetcher.getBytesFetched());
+
+        // Prefetched now, not requested again
+        prefetcher.prefetch(adBreak);
+        prefetcher.awaitIdle(TIMEOUT_MS);
+        assertEquals(2, server.getRequestCount(CREATIVE_PATH));
+    }
+
+    @Test
+    public void prefetchAfterReleaseIsIgnored() {
+        prefetcher.release();
+        prefetcher.prefetch(adBreak());
+        assertEquals(0, server.getRequestCount(CREATIVE_PATH));
+    }
+
+    private AdBreak adBreak() {
+        Ad ad = new Ad("GDFP", server.url(CREATIVE_PATH), null, null, 30, "ad-0");
+        return new AdBreak("midroll", 60_000, Collections.singletonList(ad));
+    }
+}
@@ -0,0 +1,71 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertNotSame;
+
+import com.truex.referenceapp.benchmark.Benchmark;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Heap retained by 1,000 IDVx ads holding their adParameters as raw UTF-8 JSON, compared with
+ * holding a parsed JSONObject per ad, plus the cost of parsing it when an ad is shown.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdParametersBenchmark {
+    private static final int AD_COUNT = 1000;
+
+    @Before
+    public void setUp() {
+        Benchmark.assumeEnabled();
+    }
+
+    @Test
+    public void retainedHeapPerThousandAds() throws Exception {
+        List<String> adParameters = new ArrayList<>();
+        for (int i = 0; i < AD_COUNT; i++) {
+            adParameters.add(SyntheticSchedule.idvxAdParameters(i));
+        }
+
+        long beforeBytes = Benchmark.usedHeapBytes();
+        List<Ad> ads = new ArrayList<>();
+        for (int i = 0; i < AD_COUNT; i++) {
+            ads.add(newIdvxAd(i, adParameters.get(i).getBytes(StandardCharsets.UTF_8)));
+        }
+        long rawBytes = Benchmark.usedHeapBytes() - beforeBytes;
+
+        beforeBytes = Benchmark.usedHeapBytes();
+        List<JSONObject> parsed = new ArrayList<>();
+        for (Ad ad : ads) {
+            parsed.add(ad.getAdParameters());
+        }
+        long parsedBytes = Benchmark.usedHeapBytes() - beforeBytes;
+
+        Benchmark.report("IDVx ads with raw adParameters", String.format(Locale.US, "%d KB retained per %d ads", rawBytes / 1024, AD_COUNT));
+        Benchmark.report("IDVx ads with parsed adParameters", String.format(Locale.US, "%d KB retained per %d ads", (rawBytes + parsedBytes) / 1024, AD_COUNT));
+        Benchmark.sink = parsed;
+        Benchmark.sink = ads;
+    }
+
+    @Test
+    public void parseOnShow() throws Exception {
+        Ad ad = newIdvxAd(0, SyntheticSchedule.idvxAdParameters(0).getBytes(StandardCharsets.UTF_8));
+        // Every renderer gets its own object
+        assertNotSame(ad.getAdParameters(), ad.getAdParameters());
+        Benchmark.measure("Ad.getAdParameters", ad::getAdParameters);
+    }
+
+    private static Ad newIdvxAd(int index, byte[] adParameters) {
+        return new Ad("IDVx", "https://media.truex.com/m/video/truexloadingplaceholder-30s.mp4",
+            null, ByteBuffer.wrap(adParameters), 30, "idvx-" + index);
+    }
+}
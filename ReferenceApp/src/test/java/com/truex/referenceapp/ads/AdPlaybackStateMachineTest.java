@@ -0,0 +1,111 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.truex.referenceapp.ads.AdPlaybackStateMachine.Event;
+import com.truex.referenceapp.ads.AdPlaybackStateMachine.State;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Checks every state and event pair against the expected transition table: legal events move to
+ * the expected state, illegal ones are ignored and leave the state unchanged.
+ */
+public class AdPlaybackStateMachineTest {
+    private static final Map<State, Map<Event, State>> EXPECTED = new EnumMap<>(State.class);
+
+    static {
+        for (State state : State.values()) {
+            EXPECTED.put(state, new EnumMap<>(Event.class));
+            EXPECTED.get(state).put(Event.RESET, State.IDLE);
+        }
+        EXPECTED.get(State.IDLE).put(Event.PREPARE, State.PREPARING);
+        EXPECTED.get(State.COMPLETE).put(Event.PREPARE, State.PREPARING);
+        EXPECTED.get(State.PREPARING).put(Event.PLAY_LINEAR, State.PLAYING_LINEAR);
+        EXPECTED.get(State.PREPARING).put(Event.SHOW_INTERACTIVE, State.INTERACTIVE);
+        EXPECTED.get(State.PLAYING_LINEAR).put(Event.SHOW_INTERACTIVE, State.INTERACTIVE);
+        EXPECTED.get(State.PLAYING_LINEAR).put(Event.POD_ENDED, State.COMPLETE);
+        EXPECTED.get(State.INTERACTIVE).put(Event.PLAY_LINEAR, State.PLAYING_LINEAR);
+        EXPECTED.get(State.INTERACTIVE).put(Event.CREDIT_EARNED, State.COMPLETE);
+        EXPECTED.get(State.INTERACTIVE).put(Event.POD_ENDED, State.COMPLETE);
+    }
+
+    @Test
+    public void startsIdle() {
+        assertEquals(State.IDLE, new AdPlaybackStateMachine().getState());
+    }
+
+    @Test
+    public void legalTransitions() {
+        for (State from : State.values()) {
+            for (Map.Entry<Event, State> transition : EXPECTED.get(from).entrySet()) {
+                AdPlaybackStateMachine machine = machineIn(from);
+                String description = from + " + " + transition.getKey();
+
+                assertTrue(description, machine.canHandle(transition.getKey()));
+                assertTrue(description, machine.handle(transition.getKey()));
+                assertEquals(description, transition.getValue(), machine.getState());
+            }
+        }
+    }
+
+    @Test
+    public void illegalTransitionsAreIgnored() {
+        for (State from : State.values()) {
+            for (Event event : Event.values()) {
+                if (EXPECTED.get(from).containsKey(event)) {
+                    continue;
+                }
+                AdPlaybackStateMachine machine = machineIn(from);
+                String description = from + " + " + event;
+
+                assertFalse(description, machine.canHandle(event));
+                assertFalse(description, machine.handle(event));
+                assertEquals(description, from, machine.getState());
+            }
+        }
+    }
+
+    @Test
+    public void duplicateCompletionIsHandledOnce() {
+        // e.g. the interactive ad completes and its failsafe fires for the same ad
+        AdPlaybackStateMachine machine = machineIn(State.INTERACTIVE);
+        assertTrue(machine.handle(Event.PLAY_LINEAR));
+        assertFalse(machine.handle(Event.PLAY_LINEAR));
+
+        // e.g. the last ad ends and the pod ends
+        assertTrue(machine.handle(Event.POD_ENDED));
+        assertFalse(machine.handle(Event.POD_ENDED));
+    }
+
+    private static AdPlaybackStateMachine machineIn(State state) {
+        AdPlaybackStateMachine machine = new AdPlaybackStateMachine();
+        switch (state) {
+            case IDLE:
+                break;
+            case PREPARING:
+                machine.handle(Event.PREPARE);
+                break;
+            case PLAYING_LINEAR:
+                machine.handle(Event.PREPARE);
+                machine.handle(Event.PLAY_LINEAR);
+                break;
+            case INTERACTIVE:
+                machine.handle(Event.PREPARE);
+                machine.handle(Event.SHOW_INTERACTIVE);
+                break;
+            case COMPLETE:
+                machine.handle(Event.PREPARE);
+                machine.handle(Event.PLAY_LINEAR);
+                machine.handle(Event.POD_ENDED);
+                break;
+        }
+        assertEquals(state, machine.getState());
+        return machine;
+    }
+}
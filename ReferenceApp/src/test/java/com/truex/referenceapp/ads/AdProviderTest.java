@@ -0,0 +1,35 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdProviderTest {
+    @Test
+    public void loadAsyncDeliversEmptyScheduleWhenResourceIsMissing() throws Exception {
+        Context context = RuntimeEnvironment.getApplication();
+        AtomicReference<List<AdBreak>> loaded = new AtomicReference<>();
+
+        // Resources.NotFoundException is thrown on the parse thread
+        Future<?> load = AdProvider.loadAsync(context, 0x7f0fffff, loaded::set);
+        load.get(5, TimeUnit.SECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertNotNull("callback was not invoked", loaded.get());
+        assertTrue(loaded.get().isEmpty());
+    }
+}
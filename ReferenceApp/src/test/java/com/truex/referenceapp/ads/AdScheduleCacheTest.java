@@ -0,0 +1,136 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stores schedules in the binary schedule cache and loads them back: fields survive the round
+ * trip, adParameters come back as slices of the mapped file, and stale, damaged or concurrently
+ * written entries never load as a wrong schedule.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdScheduleCacheTest {
+    private static final String KEY = "test";
+    private static final long CONTENT_KEY = 42;
+    private static final String AD_PARAMETERS = "{\"ads\":[{\"campaign_id\":52000,\"idvx\":true}]}";
+
+    private Context context;
+    private File cacheDir;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        cacheDir = new File(context.getCacheDir(), "ad_schedules");
+    }
+
+    @Test
+    public void roundTripKeepsEveryField() throws Exception {
+        new AdScheduleCache(context, KEY).store(CONTENT_KEY, schedule());
+
+        List<AdBreak> adBreaks = new AdScheduleCache(context, KEY).load(CONTENT_KEY);
+        assertNotNull(adBreaks);
+        assertEquals(2, adBreaks.size());
+        assertEquals("preroll", adBreaks.get(0).getBreakId());
+        assertEquals(60_000, adBreaks.get(1).getTimeOffsetMs());
+
+        Ad idvx = adBreaks.get(0).getAds().get(0);
+        assertEquals("IDVx", idvx.adSystem);
+        assertEquals(AdType.IDVX, idvx.adType);
+        assertEquals("https://example.com/placeholder.mp4", idvx.mediaFile);
+        assertNull(idvx.description);
+        assertEquals(30, idvx.duration);
+        assertEquals("idvx-0", idvx.adId);
+        assertEquals(52000, idvx.getAdParameters().getJSONArray("ads").getJSONObject(0).getInt("campaign_id"));
+
+        Ad regular = adBreaks.get(1).getAds().get(0);
+        assertEquals(AdType.REGULAR, regular.adType);
+        assertFalse(regular.hasAdParameters());
+        assertNull(regular.getAdParameters());
+    }
+
+    @Test
+    public void adParametersAreSlicesOfTheMappedFile() {
+        new AdScheduleCache(context, KEY).store(CONTENT_KEY, schedule());
+
+        Ad idvx = new AdScheduleCache(context, KEY).load(CONTENT_KEY).get(0).getAds().get(0);
+        ByteBuffer adParameters = idvx.getAdParametersJson();
+        assertTrue(adParameters.isDirect());
+        assertTrue(adParameters.isReadOnly());
+        assertEquals(AD_PARAMETERS, StandardCharsets.UTF_8.decode(adParameters).toString());
+        // Reading the slice does not consume it for the next renderer
+        assertEquals(idvx.getAdParameters().toString(), idvx.getAdParameters().toString());
+    }
+
+    @Test
+    public void changedContentKeyIsAMiss() {
+        new AdScheduleCache(context, KEY).store(CONTENT_KEY, schedule());
+
+        assertNull(new AdScheduleCache(context, KEY).load(CONTENT_KEY + 1));
+    }
+
+    @Test
+    public void truncatedFileIsAMiss() throws Exception {
+        new AdScheduleCache(context, KEY).store(CONTENT_KEY, schedule());
+        try (RandomAccessFile file = new RandomAccessFile(new File(cacheDir, KEY + ".bin"), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        assertNull(new AdScheduleCache(context, KEY).load(CONTENT_KEY));
+    }
+
+    @Test
+    public void concurrentStoresLeaveOneCompleteEntry() throws Exception {
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> stores = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            stores.add(executor.submit(() -> {
+                start.await();
+                new AdScheduleCache(context, KEY).store(CONTENT_KEY, schedule());
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> store : stores) {
+            store.get();
+        }
+        executor.shutdown();
+
+        assertEquals(2, new AdScheduleCache(context, KEY).load(CONTENT_KEY).size());
+        assertEquals(Collections.singletonList(KEY + ".bin"), Arrays.asList(cacheDir.list()));
+    }
+
+    private static List<AdBreak> schedule() {
+        Ad idvx = new Ad("IDVx", "https://example.com/placeholder.mp4", null,
+            ByteBuffer.wrap(AD_PARAMETERS.getBytes(StandardCharsets.UTF_8)), 30, "idvx-0");
+        Ad regular = new Ad("GDFP", "https://example.com/creative.mp4", null, null, 15, "ad-1");
+        return Arrays.asList(
+            new AdBreak("preroll", 0, Collections.singletonList(idvx)),
+            new AdBreak("midroll-1", 60_000, Collections.singletonList(regular)));
+    }
+}
@@ -0,0 +1,80 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import com.truex.referenceapp.benchmark.Benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLog;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Compares the streaming schedule parser with the JSONObject based parsing and with a hit in the
+ * memory-mapped schedule cache on a 5 MB synthetic schedule file: load time, bytes allocated and
+ * peak heap.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdScheduleParserBenchmark {
+    private static final int SCHEDULE_BYTES = 5 * 1024 * 1024;
+
+    private Context context;
+    private boolean useStreamingParser;
+    private boolean useScheduleCache;
+
+    @Before
+    public void setUp() {
+        Benchmark.assumeEnabled();
+        context = RuntimeEnvironment.getApplication();
+        useStreamingParser = AdProvider.useStreamingParser;
+        useScheduleCache = AdProvider.useScheduleCache;
+        AdProvider.useScheduleCache = false;
+    }
+
+    @After
+    public void tearDown() {
+        AdProvider.useStreamingParser = useStreamingParser;
+        AdProvider.useScheduleCache = useScheduleCache;
+        ShadowLog.clear();
+    }
+
+    @Test
+    public void streamingVersusJsonObject() throws Exception {
+        File schedule = SyntheticSchedule.write(new File(context.getCacheDir(), "benchmark.json"),
+            SyntheticSchedule.ofSize(SCHEDULE_BYTES));
+        measure("streaming", schedule, true, false);
+        measure("jsonobject", schedule, false, false);
+        // The first load stores the schedule cache entry, every measured load is a hit
+        measure("cached", schedule, true, true);
+
+        // Every mode must produce the same schedule
+        AdProvider.useScheduleCache = false;
+        AdProvider.useStreamingParser = true;
+        int streamed = new AdProvider(context, "benchmark", schedule).getAllAdBreaks().size();
+        AdProvider.useStreamingParser = false;
+        assertEquals(streamed, new AdProvider(context, "benchmark", schedule).getAllAdBreaks().size());
+        AdProvider.useScheduleCache = true;
+        assertEquals(streamed, new AdProvider(context, "benchmark", schedule).getAllAdBreaks().size());
+    }
+
+    private void measure(String mode, File schedule, boolean streaming, boolean cached) throws Exception {
+        AdProvider.useStreamingParser = streaming;
+        AdProvider.useScheduleCache = cached;
+        Benchmark.Operation parse = () -> new AdProvider(context, "benchmark", schedule).getAllAdBreaks();
+        parse.run();
+
+        String name = String.format(Locale.US, "load 5 MB/%s", mode);
+        Benchmark.measure(name, parse);
+        Benchmark.report(name, String.format(Locale.US, "%d KB allocated", Benchmark.allocatedBytes(parse) / 1024));
+        Benchmark.report(name, String.format(Locale.US, "%d KB peak heap", Benchmark.peakHeapBytes(parse) / 1024));
+        ShadowLog.clear();
+    }
+}
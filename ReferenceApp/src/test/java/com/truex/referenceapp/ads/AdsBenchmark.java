@@ -0,0 +1,166 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DefaultDataSource;
+
+import com.truex.referenceapp.benchmark.Benchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLog;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmarks for the ads hot paths, run on the JVM with Robolectric:
+ *
+ * - AdProvider schedule parsing over 1 KB to 10 MB schedules, per parse mode
+ * - AdManager.getAdBreakAt() with 10 to 10,000 ad breaks
+ * - AdManager.createMediaSource() for pods of 1 to 20 ads
+ * - Ad construction and type detection
+ *
+ * Framework classes run instrumented by Robolectric, so the numbers are for spotting regressions
+ * between runs on the same machine rather than for predicting device timings.
+ */
+@UnstableApi
+@RunWith(RobolectricTestRunner.class)
+public class AdsBenchmark {
+    private static final int[] SCHEDULE_BYTES = {1024, 10 * 1024, 100 * 1024, 1024 * 1024, 10 * 1024 * 1024};
+    private static final int[] AD_BREAK_COUNTS = {10, 100, 1000, 10_000};
+    private static final int[] POD_SIZES = {1, 4, 20};
+    private static final int LOOKUPS = 1024;
+
+    private Context context;
+    private boolean useStreamingParser;
+    private boolean useScheduleCache;
+
+    @Before
+    public void setUp() {
+        Benchmark.assumeEnabled();
+        context = RuntimeEnvironment.getApplication();
+        useStreamingParser = AdProvider.useStreamingParser;
+        useScheduleCache = AdProvider.useScheduleCache;
+    }
+
+    @After
+    public void tearDown() {
+        AdProvider.useStreamingParser = useStreamingParser;
+        AdProvider.useScheduleCache = useScheduleCache;
+        ShadowLog.clear();
+    }
+
+    @Test
+    public void parseSchedule() throws Exception {
+        for (int size : SCHEDULE_BYTES) {
+            byte[] schedule = SyntheticSchedule.ofSize(size);
+            measureParse("streaming", schedule, true, false);
+            measureParse("jsonobject", schedule, false, false);
+            measureParse("cached", schedule, true, true);
+        }
+    }
+
+    @Test
+    public void getAdBreakAt() throws Exception {
+        for (int count : AD_BREAK_COUNTS) {
+            AdManager adManager = newAdManager();
+            List<AdBreak> adBreaks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                adBreaks.add(new AdBreak("midroll-" + i, (i + 1) * 60_000, Collections.<Ad>emptyList()));
+            }
+            adManager.setAdPlaylist(adBreaks);
+
+            // Half of the lookups land on a cue point, the rest between cue points like most position checks
+            Random random = new Random(count);
+            long[] positionsMs = new long[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                long cueMs = (random.nextInt(count) + 1) * 60_000L;
+                positionsMs[i] = i % 2 == 0 ? cueMs : cueMs + 30_000;
+            }
+
+            double nsPerOp = Benchmark.measure(String.format(Locale.US, "getAdBreakAt/%d breaks (%d lookups)", count, LOOKUPS), () -> {
+                AdBreak found = null;
+                for (long positionMs : positionsMs) {
+                    AdBreak adBreak = adManager.getAdBreakAt(positionMs);
+                    if (adBreak != null) {
+                        found = adBreak;
+                    }
+                }
+                return found;
+            });
+            Benchmark.report(String.format(Locale.US, "getAdBreakAt/%d breaks", count),
+                String.format(Locale.US, "%.1f ns/lookup", nsPerOp / LOOKUPS));
+        }
+    }
+
+    @Test
+    public void createMediaSource() throws Exception {
+        AdManager adManager = newAdManager();
+        for (int podSize : POD_SIZES) {
+            List<Ad> ads = new ArrayList<>();
+            for (int i = 0; i < podSize; i++) {
+                ads.add(newAd(i));
+            }
+            AdBreak adBreak = new AdBreak("midroll", 60_000, ads);
+            Benchmark.measure(String.format(Locale.US, "createMediaSource/%d ads", podSize),
+                () -> adManager.createMediaSource(adBreak));
+        }
+    }
+
+    @Test
+    public void constructAd() throws Exception {
+        int[] counter = new int[1];
+        Benchmark.measure("Ad construction and type detection", () -> {
+            Ad ad = newAd(counter[0]++);
+            return ad.isInfillionAd() ? ad : null;
+        });
+    }
+
+    private void measureParse(String mode, byte[] schedule, boolean streaming, boolean cached) throws Exception {
+        AdProvider.useStreamingParser = streaming;
+        AdProvider.useScheduleCache = cached;
+        String cacheKey = "benchmark-" + schedule.length;
+        File scheduleFile = SyntheticSchedule.write(new File(context.getCacheDir(), cacheKey + ".json"), schedule);
+        int adBreakCount = new AdProvider(context, cacheKey, scheduleFile).getAllAdBreaks().size();
+
+        double nsPerOp = Benchmark.measure(String.format(Locale.US, "parse/%s/%d KB", mode, schedule.length / 1024), () -> {
+            List<AdBreak> adBreaks = new AdProvider(context, cacheKey, scheduleFile).getAllAdBreaks();
+            assertEquals(adBreakCount, adBreaks.size());
+            return adBreaks;
+        });
+        Benchmark.report(String.format(Locale.US, "parse/%s/%d KB", mode, schedule.length / 1024),
+            String.format(Locale.US, "%.1f MB/s", schedule.length / (nsPerOp / 1e9) / (1024 * 1024)));
+        ShadowLog.clear();
+    }
+
+    private AdManager newAdManager() {
+        return new AdManager(context, mock(AdManager.AdBreakListener.class), null, new DefaultDataSource.Factory(context));
+    }
+
+    private static Ad newAd(int index) {
+        switch (index % 3) {
+            case 0:
+                return new Ad("trueX", "https://media.truex.com/m/video/truexloadingplaceholder-30s.mp4",
+                    "https://get.truex.com/vast/config?stream_position=midroll", null, 30, "truex-" + index);
+            case 1:
+                return new Ad("IDVx", "https://media.truex.com/m/video/truexloadingplaceholder-30s.mp4",
+                    null, ByteBuffer.wrap("{\"ads\":[]}".getBytes()), 30, "idvx-" + index);
+            default:
+                return new Ad("GDFP", "https://example.com/ads/creative-" + index + ".mp4", null, null, 30, "ad-" + index);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DefaultDataSource;
+
+import com.truex.referenceapp.AppLog;
+import com.truex.referenceapp.benchmark.Benchmark;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Checks that the content position check path allocates nothing: the ad break lookup, and debug
+ * logging on that path when debug logging is compiled out (run the release unit tests, e.g.
+ * testPhoneReleaseUnitTest, for the latter).
+ */
+@UnstableApi
+@RunWith(RobolectricTestRunner.class)
+public class PositionCheckBenchmark {
+    private static final String CLASSTAG = PositionCheckBenchmark.class.getSimpleName();
+    private static final int AD_BREAKS = 1000;
+    private static final int POSITION_CHECKS = 10_000;
+
+    private AdManager adManager;
+    private long[] positionsMs;
+
+    @Before
+    public void setUp() {
+        Benchmark.assumeEnabled();
+        Context context = RuntimeEnvironment.getApplication();
+        adManager = new AdManager(context, mock(AdManager.AdBreakListener.class), null, new DefaultDataSource.Factory(context));
+        List<AdBreak> adBreaks = new ArrayList<>();
+        for (int i = 0; i < AD_BREAKS; i++) {
+            adBreaks.add(new AdBreak("midroll-" + i, (i + 1) * 60_000, Collections.<Ad>emptyList()));
+        }
+        adManager.setAdPlaylist(adBreaks);
+
+        // Position checks every 500ms across the schedule, most of them between cue points
+        positionsMs = new long[POSITION_CHECKS];
+        for (int i = 0; i < POSITION_CHECKS; i++) {
+            positionsMs[i] = i * 500L;
+        }
+    }
+
+    @Test
+    public void adBreakLookupDoesNotAllocate() throws Exception {
+        Benchmark.Operation check = () -> {
+            AdBreak found = null;
+            for (long positionMs : positionsMs) {
+                AdBreak adBreak = adManager.getAdBreakAt(positionMs);
+                if (adBreak != null) {
+                    found = adBreak;
+                }
+            }
+            return found;
+        };
+        double nsPerOp = Benchmark.measure("position check", check);
+        long allocated = Benchmark.allocatedBytes(check);
+        Benchmark.report("position check", String.format(Locale.US, "%.1f ns and %d bytes allocated per check",
+            nsPerOp / POSITION_CHECKS, allocated / POSITION_CHECKS));
+        assertEquals(0, allocated);
+    }
+
+    @Test
+    public void disabledDebugLoggingDoesNotAllocate() throws Exception {
+        Benchmark.Operation check = () -> {
+            for (long positionMs : positionsMs) {
+                AppLog.d(CLASSTAG, "position check at {}ms", positionMs);
+            }
+            return null;
+        };
+        Benchmark.measure("position check logging", check);
+        long allocated = Benchmark.allocatedBytes(check);
+        Benchmark.report("position check logging", String.format(Locale.US, "%d bytes allocated per check (debug logging %s)",
+            allocated / POSITION_CHECKS, AppLog.DEBUG_ENABLED ? "enabled" : "disabled"));
+
+        Assume.assumeFalse("debug logging is enabled in this variant", AppLog.DEBUG_ENABLED);
+        assertEquals(0, allocated);
+    }
+}
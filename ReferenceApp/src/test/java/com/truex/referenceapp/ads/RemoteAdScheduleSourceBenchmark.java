@@ -0,0 +1,151 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.truex.referenceapp.benchmark.Benchmark;
+import com.truex.referenceapp.metrics.Histogram;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Reports the latency of RemoteAdScheduleSource loads by response cache state, as recorded in
+ * PlaybackMetrics, against a loopback ad server that adds a fixed first-byte latency to a 1 MB
+ * schedule: cold (fetched), coalesced (joined a cold fetch in flight), warm (fresh cached copy)
+ * and stale (cached copy handed out, then revalidated with a 304).
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RemoteAdScheduleSourceBenchmark {
+    private static final String SCHEDULE_PATH = "/schedule.json";
+    private static final String ETAG = "\"v1\"";
+    private static final long SERVER_LATENCY_MS = 100;
+    private static final int LOADS = 10;
+    private static final long TIMEOUT_MS = 10000;
+
+    private final byte[] schedule = SyntheticSchedule.ofSize(1024 * 1024);
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+    private Context context;
+    private LocalHttpServer server;
+    private RemoteAdScheduleSource source;
+    private String url;
+    private long maxAgeMs;
+
+    @Before
+    public void setUp() throws IOException {
+        Benchmark.assumeEnabled();
+        PlaybackMetrics.getInstance().reset();
+        maxAgeMs = RemoteAdScheduleSource.maxAgeMs;
+        context = RuntimeEnvironment.getApplication();
+        server = new LocalHttpServer(this::serveSchedule);
+        url = server.url(SCHEDULE_PATH);
+        source = new RemoteAdScheduleSource(context);
+    }
+
+    @After
+    public void tearDown() {
+        RemoteAdScheduleSource.maxAgeMs = maxAgeMs;
+        server.close();
+        ShadowLog.clear();
+    }
+
+    @Test
+    public void latencyByCacheState() throws Exception {
+        for (int i = 0; i < LOADS; i++) {
+            clearCaches();
+            Future<?> coldLoad = source.load(url, adBreaks -> { });
+            int requests = i + 1;
+            // Counted when the request arrives, before the server latency
+            waitUntil(() -> server.getRequestCount(SCHEDULE_PATH) == requests);
+            Future<?> coalescedLoad = source.load(url, adBreaks -> { });
+            await(coldLoad);
+            await(coalescedLoad);
+        }
+        // A request per cold load, none for the loads that joined them
+        assertEquals(LOADS, server.getRequestCount(SCHEDULE_PATH));
+
+        RemoteAdScheduleSource.maxAgeMs = maxAgeMs;
+        for (int i = 0; i < LOADS; i++) {
+            await(source.load(url, adBreaks -> { }));
+        }
+
+        RemoteAdScheduleSource.maxAgeMs = 0;
+        for (int i = 0; i < LOADS; i++) {
+            // Older than maxAgeMs even on a coarse clock
+            LocalHttpServer.sleep(2);
+            await(source.load(url, adBreaks -> { }));
+            // Let the revalidation finish before the next load
+            int revalidations = i + 1;
+            waitUntil(() -> notModifiedCount.get() == revalidations);
+        }
+
+        report("cold", PlaybackMetrics.Timer.AD_SCHEDULE_COLD);
+        report("coalesced", PlaybackMetrics.Timer.AD_SCHEDULE_COALESCED);
+        report("warm", PlaybackMetrics.Timer.AD_SCHEDULE_WARM);
+        report("stale", PlaybackMetrics.Timer.AD_SCHEDULE_STALE);
+    }
+
+    private void report(String cacheState, PlaybackMetrics.Timer timer) {
+        Histogram histogram = PlaybackMetrics.getInstance().getHistogram(timer);
+        assertEquals(cacheState, LOADS, histogram.getCount());
+        Benchmark.report(String.format(Locale.US, "ad schedule load/%s", cacheState),
+            String.format(Locale.US, "mean %d ms, min %d ms, max %d ms (server latency %d ms, %d KB)",
+                histogram.getMeanMs(), histogram.getMinMs(), histogram.getMaxMs(), SERVER_LATENCY_MS, schedule.length / 1024));
+    }
+
+    private void await(Future<?> load) throws Exception {
+        load.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadlineMs = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadlineMs) {
+                throw new AssertionError("Timed out");
+            }
+            LocalHttpServer.sleep(1);
+        }
+    }
+
+    private void clearCaches() {
+        for (String dirName : new String[] {"ad_schedule_responses", "ad_schedules"}) {
+            File[] files = new File(context.getCacheDir(), dirName).listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private void serveSchedule(HttpExchange exchange) throws IOException {
+        LocalHttpServer.sleep(SERVER_LATENCY_MS);
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedCount.incrementAndGet();
+            LocalHttpServer.respond(exchange, 304, null);
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        LocalHttpServer.respond(exchange, 200, schedule);
+    }
+}
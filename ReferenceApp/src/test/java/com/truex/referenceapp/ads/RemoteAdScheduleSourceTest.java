@@ -0,0 +1,197 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Loads a schedule from a loopback ad server through RemoteAdScheduleSource and checks what goes
+ * over the network for cold, warm, stale and coalesced loads, and that a cancelled load that
+ * shares a fetch is never called back.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RemoteAdScheduleSourceTest {
+    private static final String SCHEDULE_PATH = "/schedule.json";
+    private static final String ETAG = "\"v1\"";
+    private static final long TIMEOUT_MS = 5000;
+
+    private final byte[] schedule = SyntheticSchedule.ofSize(16 * 1024);
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+    private volatile CountDownLatch responseGate = new CountDownLatch(0);
+
+    private int adBreakCount;
+    private LocalHttpServer server;
+    private RemoteAdScheduleSource source;
+    private String url;
+    private long maxAgeMs;
+
+    @Before
+    public void setUp() throws IOException {
+        PlaybackMetrics.getInstance().reset();
+        int[] count = new int[1];
+        AdScheduleParser.parse(new ByteArrayInputStream(schedule), adBreak -> count[0]++);
+        adBreakCount = count[0];
+        maxAgeMs = RemoteAdScheduleSource.maxAgeMs;
+        server = new LocalHttpServer(this::serveSchedule);
+        url = server.url(SCHEDULE_PATH);
+        source = new RemoteAdScheduleSource(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        RemoteAdScheduleSource.maxAgeMs = maxAgeMs;
+        responseGate.countDown();
+        server.close();
+    }
+
+    @Test
+    public void warmLoadDoesNotTouchTheNetwork() throws Exception {
+        assertEquals(adBreakCount, load().size());
+        assertEquals(adBreakCount, load().size());
+
+        assertEquals(1, server.getRequestCount(SCHEDULE_PATH));
+        assertEquals(1, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_COLD));
+        assertEquals(1, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_WARM));
+    }
+
+    @Test
+    public void staleLoadIsServedFromCacheThenRevalidated() throws Exception {
+        RemoteAdScheduleSource.maxAgeMs = 0;
+        load();
+        LocalHttpServer.sleep(5);
+
+        assertEquals(adBreakCount, load().size());
+        assertEquals(1, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_STALE));
+        waitUntil(() -> notModifiedCount.get() == 1);
+        assertEquals(2, server.getRequestCount(SCHEDULE_PATH));
+    }
+
+    @Test
+    public void concurrentColdLoadsShareOneFetch() throws Exception {
+        responseGate = new CountDownLatch(1);
+        Recorder first = new Recorder();
+        Recorder joined = new Recorder();
+        Future<?> firstLoad = source.load(url, first);
+        waitUntil(() -> server.getRequestCount(SCHEDULE_PATH) == 1);
+        Future<?> joinedLoad = source.load(url, joined);
+        waitUntil(() -> source.getWaitingLoadCount(url) == 2);
+
+        responseGate.countDown();
+        firstLoad.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        joinedLoad.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(adBreakCount, first.adBreaks.size());
+        assertEquals(adBreakCount, joined.adBreaks.size());
+        assertEquals(1, server.getRequestCount(SCHEDULE_PATH));
+        assertEquals(1, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_COLD));
+        assertEquals(1, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_COALESCED));
+    }
+
+    @Test
+    public void cancelledLoadSharingAFetchIsNotCalledBack() throws Exception {
+        responseGate = new CountDownLatch(1);
+        Recorder first = new Recorder();
+        Recorder cancelled = new Recorder();
+        Future<?> firstLoad = source.load(url, first);
+        waitUntil(() -> server.getRequestCount(SCHEDULE_PATH) == 1);
+        Future<?> cancelledLoad = source.load(url, cancelled);
+        waitUntil(() -> source.getWaitingLoadCount(url) == 2);
+
+        assertTrue(cancelledLoad.cancel(false));
+        assertEquals(1, source.getWaitingLoadCount(url));
+        responseGate.countDown();
+        firstLoad.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertNotNull(first.adBreaks);
+        assertNull(cancelled.adBreaks);
+        assertTrue(cancelledLoad.isCancelled());
+        assertEquals(0, timerCount(PlaybackMetrics.Timer.AD_SCHEDULE_COALESCED));
+    }
+
+    @Test
+    public void loadCancelledAfterDeliveryIsNotCalledBack() throws Exception {
+        load();
+        Recorder cancelled = new Recorder();
+        Future<?> cancelledLoad = source.load(url, cancelled);
+        cancelledLoad.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        // Handed to the main thread but not called back yet
+        cancelledLoad.cancel(false);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertNull(cancelled.adBreaks);
+        assertFalse(cancelledLoad.isCancelled());
+    }
+
+    private List<AdBreak> load() throws Exception {
+        Recorder recorder = new Recorder();
+        source.load(url, recorder).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertNotNull(recorder.adBreaks);
+        return recorder.adBreaks;
+    }
+
+    private void serveSchedule(HttpExchange exchange) throws IOException {
+        try {
+            responseGate.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedCount.incrementAndGet();
+            LocalHttpServer.respond(exchange, 304, null);
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        LocalHttpServer.respond(exchange, 200, schedule);
+    }
+
+    private static long timerCount(PlaybackMetrics.Timer timer) {
+        return PlaybackMetrics.getInstance().getHistogram(timer).getCount();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadlineMs = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadlineMs) {
+                throw new AssertionError("Timed out");
+            }
+            LocalHttpServer.sleep(5);
+        }
+    }
+
+    private static class Recorder implements AdProvider.LoadCallback {
+        List<AdBreak> adBreaks;
+
+        @Override
+        public void onAdBreaksLoaded(List<AdBreak> adBreaks) {
+            this.adBreaks = adBreaks;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.truex.referenceapp.ads;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds ad schedule JSON of a given size for benchmarks, shaped like adbreaks_stub.json: pods of
+ * two regular video ads, a true[X] ad and an IDVx ad with a kilobyte-sized adParameters object.
+ */
+final class SyntheticSchedule {
+    private static final int ADS_PER_BREAK = 4;
+    private static final long BREAK_INTERVAL_MS = 60_000;
+
+    private SyntheticSchedule() {
+    }
+
+    /**
+     * Returns a schedule of at least targetBytes, adding whole ads until it is big enough.
+     * The last pod may be partial.
+     */
+    static byte[] ofSize(int targetBytes) {
+        StringBuilder json = new StringBuilder(targetBytes + 4096);
+        json.append("{\"adBreaks\":[");
+        int adCount = 0;
+        do {
+            int adIndex = adCount % ADS_PER_BREAK;
+            if (adIndex == 0) {
+                int breakIndex = adCount / ADS_PER_BREAK;
+                if (breakIndex > 0) {
+                    json.append("]},");
+                }
+                json.append("{\"breakId\":\"midroll-").append(breakIndex)
+                    .append("\",\"timeOffsetMs\":").append(breakIndex * BREAK_INTERVAL_MS)
+                    .append(",\"videoAdDuration\":30,\"ads\":[");
+            } else {
+                json.append(',');
+            }
+            appendAd(json, adCount, adIndex);
+            adCount++;
+        } while (json.length() + 4 < targetBytes);
+        json.append("]}]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the schedule to a file, the way RemoteAdScheduleSource caches a fetched schedule
+     */
+    static File write(File file, byte[] schedule) throws IOException {
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(schedule);
+        }
+        return file;
+    }
+
+    /**
+     * Returns the adParameters JSON of an IDVx ad, about 1.3 KB
+     */
+    static String idvxAdParameters(int adCount) {
+        StringBuilder json = new StringBuilder(1400);
+        json.append("{\"xtended_view_fill\":[],\"ads\":[{\"service_url\":\"measure.truex.com\",\"idvx\":true,")
+            .append("\"campaign_id\":").append(52000 + adCount).append(",\"service_params\":\"bid_info=");
+        for (int i = 0; i < 24; i++) {
+            json.append("0-CEYbQettUMk-27YsB4hucTuNsknDrPHUJiCtmiuVRhty");
+        }
+        json.append("&campaign_id=").append(adCount).append("\",\"window_height\":580,\"revenue_amount\":\"0.0\"}]}");
+        return json.toString();
+    }
+
+    private static void appendAd(StringBuilder json, int adCount, int adIndex) {
+        json.append("{\"id\":\"ad-").append(adCount).append('"');
+        switch (adIndex) {
+            case 2:
+                json.append(",\"adSystem\":\"trueX\",\"description\":\"https://get.truex.com/")
+                    .append(Integer.toHexString(adCount))
+                    .append("/vast/config?dimension_1=sample-video\\u0026stream_position=midroll\"")
+                    .append(",\"mediaFile\":\"https://media.truex.com/m/video/truexloadingplaceholder-30s.mp4\"");
+                break;
+            case 3:
+                json.append(",\"adSystem\":\"IDVx\",\"mediaFile\":\"https://media.truex.com/m/video/truexloadingplaceholder-30s.mp4\"")
+                    .append(",\"adParameters\":").append(idvxAdParameters(adCount));
+                break;
+            default:
+                json.append(",\"adSystem\":\"GDFP\",\"mediaFile\":\"https://example.com/ads/creative-")
+                    .append(adCount).append(".mp4\"");
+                break;
+        }
+        json.append(",\"duration\":30}");
+    }
+}
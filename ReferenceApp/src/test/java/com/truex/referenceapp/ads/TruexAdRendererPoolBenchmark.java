@@ -0,0 +1,84 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import com.truex.referenceapp.benchmark.Benchmark;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.Locale;
+
+/**
+ * Measures per-ad renderer setup, i.e. TruexAdRendererPool.acquire() when an ad is reached, with
+ * real TruexAdRenderer instances, with and without pooling. With pooling the standby renderer is
+ * created while the main thread is idle between ads, that time is reported separately since it
+ * moves off the ad's path rather than going away.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TruexAdRendererPoolBenchmark {
+    private static final int ADS = 50;
+
+    private final boolean usePooling = TruexAdRendererPool.usePooling;
+
+    @Before
+    public void setUp() {
+        Benchmark.assumeEnabled();
+        PlaybackMetrics.getInstance().reset();
+    }
+
+    @After
+    public void tearDown() {
+        TruexAdRendererPool.usePooling = usePooling;
+    }
+
+    @Test
+    public void setupTimePerAd() {
+        measure(false);
+        measure(true);
+        assertEquals(2 * ADS, PlaybackMetrics.getInstance().getHistogram(PlaybackMetrics.Timer.RENDERER_SETUP).getCount());
+    }
+
+    private void measure(boolean pooled) {
+        TruexAdRendererPool.usePooling = pooled;
+        ActivityController<Activity> activityController = Robolectric.buildActivity(Activity.class).setup();
+        TruexAdRendererPool pool = TruexAdRendererPool.getInstance(activityController.get());
+        idleMainLooper();
+
+        long setupNs = 0;
+        long maxSetupNs = 0;
+        long idleNs = 0;
+        for (int i = 0; i < ADS; i++) {
+            long startNs = System.nanoTime();
+            TruexAdRendererPool.Lease lease = pool.acquire();
+            long adSetupNs = System.nanoTime() - startNs;
+            setupNs += adSetupNs;
+            maxSetupNs = Math.max(maxSetupNs, adSetupNs);
+            pool.release(lease);
+
+            // Content plays between ads
+            startNs = System.nanoTime();
+            idleMainLooper();
+            idleNs += System.nanoTime() - startNs;
+        }
+        activityController.destroy();
+
+        Benchmark.report(String.format(Locale.US, "renderer setup/%s", pooled ? "pooled" : "unpooled"),
+            String.format(Locale.US, "mean %d us, max %d us per ad, %d us per ad between ads (%d ads)",
+                setupNs / ADS / 1000, maxSetupNs / 1000, idleNs / ADS / 1000, ADS));
+    }
+
+    private static void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+}
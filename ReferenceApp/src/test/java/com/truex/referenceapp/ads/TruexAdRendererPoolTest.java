@@ -0,0 +1,201 @@
+package com.truex.referenceapp.ads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import com.truex.adrenderer.IEventEmitter;
+import com.truex.adrenderer.TruexAdEvent;
+import com.truex.adrenderer.TruexAdRenderer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives TruexAdRendererPool with mocked renderers: the prepared renderer is handed out and
+ * replaced, released renderers are stopped exactly once and never handed out again, and 50
+ * acquire/release cycles leave no renderer, listener owner or InfillionAdManager reachable.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TruexAdRendererPoolTest {
+    private static final int CYCLES = 50;
+
+    private final TruexAdRendererPool.RendererFactory rendererFactory = TruexAdRendererPool.rendererFactory;
+    private final List<TruexAdRenderer> createdRenderers = new ArrayList<>();
+
+    private ActivityController<Activity> activityController;
+    private Activity activity;
+
+    @Before
+    public void setUp() {
+        TruexAdRendererPool.rendererFactory = context -> {
+            TruexAdRenderer renderer = mock(TruexAdRenderer.class);
+            createdRenderers.add(renderer);
+            return renderer;
+        };
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+    }
+
+    @After
+    public void tearDown() {
+        activityController.destroy();
+        TruexAdRendererPool.rendererFactory = rendererFactory;
+        Mockito.framework().clearInlineMocks();
+    }
+
+    @Test
+    public void acquireHandsOutThePreparedRenderer() {
+        TruexAdRendererPool pool = TruexAdRendererPool.getInstance(activity);
+        idleMainLooper();
+        assertEquals(1, createdRenderers.size());
+
+        TruexAdRendererPool.Lease lease = pool.acquire();
+        assertSame(createdRenderers.get(0), lease.getRenderer());
+        assertEquals(1, createdRenderers.size());
+
+        // The next standby is created once the main thread is idle
+        idleMainLooper();
+        assertEquals(2, createdRenderers.size());
+        verify(createdRenderers.get(1), never()).init(any(String.class), any());
+    }
+
+    @Test
+    public void releasedRendererIsStoppedOnceAndNotReused() {
+        InfillionAdManager adManager = newAdManager();
+        TruexAdRenderer renderer = createdRenderers.get(0);
+        idleMainLooper();
+
+        // As AdManager.onStop() does: stop, then destroy
+        adManager.onStop();
+        adManager.destroy();
+        adManager.destroy();
+
+        verify(renderer, times(1)).stop();
+        verify(renderer).removeEventListener(isNull(), any(IEventEmitter.IEventHandler.class));
+        assertNotSame(renderer, TruexAdRendererPool.getInstance(activity).acquire().getRenderer());
+    }
+
+    @Test
+    public void poolIsDroppedWithItsActivity() {
+        TruexAdRendererPool pool = TruexAdRendererPool.getInstance(activity);
+        assertSame(pool, TruexAdRendererPool.getInstance(activity));
+
+        activityController.destroy();
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        activity = activityController.get();
+
+        assertNotSame(pool, TruexAdRendererPool.getInstance(activity));
+    }
+
+    @Test
+    public void noRendererOrCallbackIsRetainedAcrossCycles() {
+        TruexAdRendererPool pool = TruexAdRendererPool.getInstance(activity);
+        List<WeakReference<Object>> released = new ArrayList<>();
+
+        for (int i = 0; i < CYCLES; i++) {
+            runCycle(pool, released);
+        }
+
+        // Mocks record their invocations, forget them so only the app's references are left
+        createdRenderers.clear();
+        Mockito.framework().clearInlineMocks();
+        assertCollected(released);
+    }
+
+    /**
+     * One ad through a lease, as UnlockFragment does, and one through InfillionAdManager. Runs in
+     * its own frame so no local of the last cycle is still reachable from the test.
+     */
+    private void runCycle(TruexAdRendererPool pool, List<WeakReference<Object>> released) {
+        // Stands in for UnlockFragment, which adds its own method references as listeners
+        ListenerOwner owner = new ListenerOwner();
+        TruexAdRendererPool.Lease lease = pool.acquire();
+        TruexAdRenderer renderer = lease.getRenderer();
+        lease.addEventListener(TruexAdEvent.AD_COMPLETED, owner::onEvent);
+        lease.addEventListener(null, owner::onEvent);
+        idleMainLooper();
+        pool.release(lease);
+        assertNull(lease.getRenderer());
+        verify(renderer, times(1)).stop();
+        verify(renderer, times(2)).removeEventListener(any(), any(IEventEmitter.IEventHandler.class));
+
+        InfillionAdManager adManager = newAdManager();
+        // The standby prepared after the lease above
+        TruexAdRenderer adManagerRenderer = createdRenderers.get(createdRenderers.size() - 1);
+        idleMainLooper();
+        adManager.onStop();
+        adManager.destroy();
+        // Verifying also drops Mockito's reference to the last invocation, and with it our listener
+        verify(adManagerRenderer, times(1)).stop();
+
+        released.add(new WeakReference<>(owner));
+        released.add(new WeakReference<>(renderer));
+        released.add(new WeakReference<>(adManager));
+        released.add(new WeakReference<>(adManagerRenderer));
+    }
+
+    private InfillionAdManager newAdManager() {
+        return new InfillionAdManager(activity, new InfillionAdManager.CompletionCallback() {
+            @Override
+            public void onAdComplete(boolean receivedCredit) {
+            }
+
+            @Override
+            public void onPopup(String url) {
+            }
+        });
+    }
+
+    private static void idleMainLooper() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static void assertCollected(List<WeakReference<Object>> references) {
+        for (int attempt = 0; attempt < 20 && countRetained(references) > 0; attempt++) {
+            System.gc();
+            LocalHttpServer.sleep(20);
+        }
+        assertEquals("objects retained after release", 0, countRetained(references));
+    }
+
+    private static int countRetained(List<WeakReference<Object>> references) {
+        int retained = 0;
+        for (WeakReference<Object> reference : references) {
+            if (reference.get() != null) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+
+    private static class ListenerOwner {
+        // Makes a retained owner expensive, as a leaked fragment would be
+        final byte[] state = new byte[64 * 1024];
+
+        void onEvent(TruexAdEvent event, Map<String, ?> data) {
+        }
+    }
+}
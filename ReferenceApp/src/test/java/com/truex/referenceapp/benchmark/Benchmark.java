@@ -0,0 +1,131 @@
+package com.truex.referenceapp.benchmark;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Minimal benchmark harness for JVM unit tests.
+ *
+ * Benchmarks are skipped unless the build runs with -Pbenchmark, e.g.
+ *
+ *   ./gradlew :ReferenceApp:testPhoneDebugUnitTest -Pbenchmark --tests '*Benchmark'
+ *
+ * An operation is warmed up so the JIT has compiled it, then timed in batches. The median batch is
+ * reported so a GC or scheduler hiccup in one batch does not skew the result. Results are printed
+ * as one line per measurement so runs can be diffed in CI.
+ */
+public final class Benchmark {
+    private static final long WARMUP_NS = 500_000_000L;
+    private static final long MEASURE_NS = 1_000_000_000L;
+    private static final int BATCHES = 10;
+
+    // Results are written here so the JIT cannot drop the measured work as dead code
+    public static volatile Object sink;
+
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    private Benchmark() {
+    }
+
+    /**
+     * Skip the calling test unless benchmarks were requested
+     */
+    public static void assumeEnabled() {
+        Assume.assumeTrue("benchmarks run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+    }
+
+    /**
+     * Returns the median time of one operation in nanoseconds
+     */
+    public static double measure(String name, Operation operation) throws Exception {
+        // Warm up and estimate how many operations fit in a batch
+        long operations = 0;
+        long startNs = System.nanoTime();
+        while (System.nanoTime() - startNs < WARMUP_NS) {
+            sink = operation.run();
+            operations++;
+        }
+        long batchSize = Math.max(1, operations * MEASURE_NS / WARMUP_NS / BATCHES);
+
+        double[] nsPerOp = new double[BATCHES];
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long batchStartNs = System.nanoTime();
+            for (long i = 0; i < batchSize; i++) {
+                sink = operation.run();
+            }
+            nsPerOp[batch] = (double) (System.nanoTime() - batchStartNs) / batchSize;
+        }
+        Arrays.sort(nsPerOp);
+        double median = nsPerOp[BATCHES / 2];
+        report(name, String.format(Locale.US, "%.1f ns/op (%d ops)", median, batchSize * BATCHES));
+        return median;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread while running the operation
+     */
+    public static long allocatedBytes(Operation operation) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            Assume.assumeTrue("allocation tracking is not supported by this JVM", false);
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long threadId = Thread.currentThread().getId();
+        // Reading the counter may allocate itself, measure that first and leave it out
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        long overhead = allocations.getThreadAllocatedBytes(threadId) - before;
+        before = allocations.getThreadAllocatedBytes(threadId);
+        sink = operation.run();
+        return allocations.getThreadAllocatedBytes(threadId) - before - overhead;
+    }
+
+    /**
+     * Returns the peak heap in use while running the operation, above the heap in use before it.
+     * Peaks are tracked per memory pool, so this is an upper bound when a collection runs meanwhile.
+     */
+    public static long peakHeapBytes(Operation operation) throws Exception {
+        long baselineBytes = usedHeapBytes();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        sink = operation.run();
+        long peakBytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        sink = null;
+        return peakBytes - baselineBytes;
+    }
+
+    /**
+     * Returns the heap in use after a full collection, as close to the live set as the JVM allows
+     */
+    public static long usedHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void report(String name, String result) {
+        System.out.println("BENCHMARK " + name + ": " + result);
+    }
+}
@@ -0,0 +1,199 @@
+package com.truex.referenceapp.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.Clock;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.PlayerMessage;
+
+import com.truex.referenceapp.ads.AdBreak;
+import com.truex.referenceapp.ads.AdManager;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Drives AdCueScheduler against a fake playback clock for a 2 hour session and checks that the
+ * scheduler only wakes up at cue points (and their pre-warm points), never while content plays.
+ */
+public class AdCueSchedulerTest {
+    private static final long SESSION_MS = 2 * 60 * 60 * 1000L;
+    private static final long BREAK_INTERVAL_MS = 15 * 60 * 1000L;
+
+    private FakePlayback playback;
+    private List<AdBreak> adBreaks;
+    private AdCueScheduler scheduler;
+
+    private final List<Long> cuePositionsMs = new ArrayList<>();
+    private final List<Long> prewarmPositionsMs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        PlaybackMetrics.getInstance().reset();
+
+        // Midrolls every 15 minutes through the session
+        adBreaks = new ArrayList<>();
+        for (long offsetMs = BREAK_INTERVAL_MS; offsetMs < SESSION_MS; offsetMs += BREAK_INTERVAL_MS) {
+            adBreaks.add(new AdBreak("midroll-" + adBreaks.size(), (int) offsetMs, Collections.emptyList()));
+        }
+
+        playback = new FakePlayback();
+        ExoPlayer player = mock(ExoPlayer.class);
+        when(player.getCurrentPosition()).thenAnswer(invocation -> playback.positionMs);
+        when(player.createMessage(any())).thenAnswer(invocation -> new PlayerMessage(
+            playback, invocation.getArgument(0), Timeline.EMPTY, 0, Clock.DEFAULT, null));
+
+        AdManager adManager = mock(AdManager.class);
+        when(adManager.getUpcomingAdBreaks(anyLong())).thenAnswer(invocation -> upcomingAdBreaks(invocation.getArgument(0)));
+        when(adManager.getAdBreakAt(anyLong())).thenAnswer(invocation -> adBreakAt(invocation.getArgument(0)));
+
+        scheduler = new AdCueScheduler(player, adManager, new AdCueScheduler.Listener() {
+            @Override
+            public void onAdCueApproaching(AdBreak adBreak) {
+                prewarmPositionsMs.add(playback.positionMs);
+            }
+
+            @Override
+            public void onAdCue(AdBreak adBreak) {
+                cuePositionsMs.add(playback.positionMs);
+                // Play the break, then resume content which re-arms the scheduler like PlayerFragment does
+                adBreak.setStarted(true);
+                adBreak.setCompleted(true);
+                scheduler.arm();
+            }
+        });
+    }
+
+    @Test
+    public void wakesUpOnlyAtCuePoints() {
+        scheduler.arm();
+        playback.playUntil(SESSION_MS);
+
+        assertEquals(adBreaks.size(), cuePositionsMs.size());
+        assertEquals(adBreaks.size(), prewarmPositionsMs.size());
+        for (int i = 0; i < adBreaks.size(); i++) {
+            long offsetMs = adBreaks.get(i).getTimeOffsetMs();
+            assertEquals(offsetMs, (long) cuePositionsMs.get(i));
+            assertEquals(offsetMs - AdCueScheduler.prewarmLeadMs, (long) prewarmPositionsMs.get(i));
+        }
+
+        // One wakeup per cue and one per pre-warm, versus 14,400 for a 500ms polling loop
+        assertEquals(2 * adBreaks.size(), playback.wakeups);
+        assertEquals(0, PlaybackMetrics.getInstance().getHistogram(PlaybackMetrics.Timer.CUE_DETECTION).getMaxMs());
+    }
+
+    @Test
+    public void seekPastCuePointsOnlySchedulesRemainingBreaks() {
+        scheduler.arm();
+        playback.playUntil(10 * 60 * 1000L);
+
+        // Skipping over the 15 and 30 minute breaks must not deliver their stale messages
+        long seekPositionMs = 40 * 60 * 1000L;
+        playback.positionMs = seekPositionMs;
+        scheduler.onSeek(seekPositionMs);
+        playback.playUntil(SESSION_MS);
+
+        int remainingBreaks = upcomingCount(seekPositionMs);
+        assertEquals(remainingBreaks, cuePositionsMs.size());
+        for (long positionMs : cuePositionsMs) {
+            assertTrue(positionMs > seekPositionMs);
+        }
+        assertEquals(2 * remainingBreaks, playback.wakeups);
+    }
+
+    @Test
+    public void seekOntoCuePointStartsBreakImmediately() {
+        scheduler.arm();
+        playback.playUntil(60 * 1000L);
+
+        long seekPositionMs = BREAK_INTERVAL_MS + 500;
+        playback.positionMs = seekPositionMs;
+        scheduler.onSeek(seekPositionMs);
+
+        assertEquals(Collections.singletonList(seekPositionMs), cuePositionsMs);
+        assertEquals(0, playback.wakeups);
+    }
+
+    private int upcomingCount(long fromMs) {
+        int count = 0;
+        for (AdBreak adBreak : adBreaks) {
+            if (adBreak.getTimeOffsetMs() > fromMs) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<AdBreak> upcomingAdBreaks(long fromMs) {
+        List<AdBreak> upcoming = new ArrayList<>();
+        for (AdBreak adBreak : adBreaks) {
+            if (adBreak.getTimeOffsetMs() >= fromMs && !adBreak.isStarted() && !adBreak.isCompleted()) {
+                upcoming.add(adBreak);
+            }
+        }
+        return upcoming;
+    }
+
+    private AdBreak adBreakAt(long positionMs) {
+        for (AdBreak adBreak : adBreaks) {
+            if (!adBreak.isCompleted() && Math.abs(adBreak.getTimeOffsetMs() - positionMs) <= 1000) {
+                return adBreak;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stands in for the playback thread: delivers sent player messages in position order as the
+     * content position advances, counting every delivery as a wakeup.
+     */
+    private static class FakePlayback implements PlayerMessage.Sender {
+        final List<PlayerMessage> pending = new ArrayList<>();
+        long positionMs;
+        int wakeups;
+
+        @Override
+        public void sendMessage(PlayerMessage message) {
+            pending.add(message);
+        }
+
+        void playUntil(long endMs) {
+            PlayerMessage next;
+            while ((next = nextMessage(endMs)) != null) {
+                pending.remove(next);
+                positionMs = next.getPositionMs();
+                wakeups++;
+                try {
+                    next.getTarget().handleMessage(next.getType(), next.getPayload());
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+            positionMs = endMs;
+        }
+
+        private PlayerMessage nextMessage(long endMs) {
+            PlayerMessage next = null;
+            for (PlayerMessage message : pending) {
+                if (message.isCanceled() || message.getPositionMs() < positionMs || message.getPositionMs() > endMs) {
+                    continue;
+                }
+                if (next == null || message.getPositionMs() < next.getPositionMs()) {
+                    next = message;
+                }
+            }
+            return next;
+        }
+    }
+}
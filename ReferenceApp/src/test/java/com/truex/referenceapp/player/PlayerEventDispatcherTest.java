@@ -0,0 +1,182 @@
+package com.truex.referenceapp.player;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays 100 simulated ad breaks through one PlayerEventDispatcher the way PlayerFragment drives it
+ * and checks that the callbacks per break do not grow. PlayerFragmentTest checks the listeners
+ * PlayerFragment registers on its players.
+ */
+public class PlayerEventDispatcherTest {
+    private static final int AD_BREAKS = 100;
+    private static final int ADS_PER_POD = 3;
+
+    private final List<Player.Listener> playerListeners = new ArrayList<>();
+    private CountingListener listener;
+    private PlayerEventDispatcher dispatcher;
+    private Timeline podTimeline;
+
+    @Before
+    public void setUp() {
+        listener = new CountingListener();
+        dispatcher = new PlayerEventDispatcher(listener);
+        podTimeline = mock(Timeline.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        when(podTimeline.getWindowCount()).thenReturn(ADS_PER_POD);
+
+        // The listeners the simulated player broadcasts to
+        playerListeners.add(dispatcher);
+    }
+
+    @Test
+    public void callbacksStayConstantAcrossAdBreaks() {
+        CountingListener firstBreak = null;
+        for (int i = 0; i < AD_BREAKS; i++) {
+            listener.reset();
+            playAdBreak();
+            resumeContent();
+
+            if (firstBreak == null) {
+                firstBreak = listener.copy();
+            } else {
+                assertEquals(firstBreak, listener);
+            }
+        }
+
+        assertEquals(ADS_PER_POD - 1, firstBreak.podItemsCompleted);
+        assertEquals(1, firstBreak.podTimelinesChanged);
+        assertEquals(1, firstBreak.podsEnded);
+        assertEquals(1, firstBreak.contentPlaying);
+        assertEquals(1, firstBreak.contentSeeks);
+    }
+
+    @Test
+    public void contentEventsAreIgnoredWhilePodPlays() {
+        dispatcher.setMode(PlayerEventDispatcher.Mode.AD_POD);
+        seek(Player.DISCONTINUITY_REASON_SEEK);
+        broadcastIsPlaying(true);
+
+        assertEquals(new CountingListener(), listener);
+    }
+
+    private void playAdBreak() {
+        dispatcher.setMode(PlayerEventDispatcher.Mode.AD_POD);
+        for (Player.Listener playerListener : playerListeners) {
+            playerListener.onTimelineChanged(podTimeline, Player.TIMELINE_CHANGE_REASON_SOURCE_UPDATE);
+        }
+        for (int ad = 1; ad < ADS_PER_POD; ad++) {
+            seek(Player.DISCONTINUITY_REASON_AUTO_TRANSITION);
+        }
+        // The end of the pod is reported once even if the player reports it again
+        broadcastPlaybackState(Player.STATE_ENDED);
+        broadcastPlaybackState(Player.STATE_ENDED);
+    }
+
+    private void resumeContent() {
+        dispatcher.setMode(PlayerEventDispatcher.Mode.CONTENT);
+        broadcastIsPlaying(true);
+        seek(Player.DISCONTINUITY_REASON_SEEK);
+        // The content player's own end is not a pod end
+        broadcastPlaybackState(Player.STATE_ENDED);
+    }
+
+    private void broadcastPlaybackState(int playbackState) {
+        for (Player.Listener playerListener : playerListeners) {
+            playerListener.onPlaybackStateChanged(playbackState);
+        }
+    }
+
+    private void broadcastIsPlaying(boolean isPlaying) {
+        for (Player.Listener playerListener : playerListeners) {
+            playerListener.onIsPlayingChanged(isPlaying);
+        }
+    }
+
+    private void seek(int reason) {
+        Player.PositionInfo position = new Player.PositionInfo(null, 0, null, null, 0, 1000, 1000, -1, -1);
+        for (Player.Listener playerListener : playerListeners) {
+            playerListener.onPositionDiscontinuity(position, position, reason);
+        }
+    }
+
+    private static class CountingListener implements PlayerEventDispatcher.Listener {
+        int contentSeeks;
+        int contentPlaying;
+        int podItemsCompleted;
+        int podTimelinesChanged;
+        int podsEnded;
+
+        @Override
+        public void onContentSeek(long positionMs) {
+            contentSeeks++;
+        }
+
+        @Override
+        public void onContentPlaying() {
+            contentPlaying++;
+        }
+
+        @Override
+        public void onAdPodItemCompleted() {
+            podItemsCompleted++;
+        }
+
+        @Override
+        public void onAdPodTimelineChanged(Timeline timeline) {
+            podTimelinesChanged++;
+        }
+
+        @Override
+        public void onAdPodEnded() {
+            podsEnded++;
+        }
+
+        void reset() {
+            contentSeeks = contentPlaying = podItemsCompleted = podTimelinesChanged = podsEnded = 0;
+        }
+
+        CountingListener copy() {
+            CountingListener copy = new CountingListener();
+            copy.contentSeeks = contentSeeks;
+            copy.contentPlaying = contentPlaying;
+            copy.podItemsCompleted = podItemsCompleted;
+            copy.podTimelinesChanged = podTimelinesChanged;
+            copy.podsEnded = podsEnded;
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CountingListener)) {
+                return false;
+            }
+            CountingListener other = (CountingListener) o;
+            return contentSeeks == other.contentSeeks && contentPlaying == other.contentPlaying
+                && podItemsCompleted == other.podItemsCompleted
+                && podTimelinesChanged == other.podTimelinesChanged && podsEnded == other.podsEnded;
+        }
+
+        @Override
+        public int hashCode() {
+            return podsEnded;
+        }
+
+        @Override
+        public String toString() {
+            return "seeks=" + contentSeeks + " playing=" + contentPlaying + " items=" + podItemsCompleted
+                + " timelines=" + podTimelinesChanged + " ended=" + podsEnded;
+        }
+    }
+}
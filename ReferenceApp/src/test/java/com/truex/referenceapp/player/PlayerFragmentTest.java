@@ -0,0 +1,199 @@
+package com.truex.referenceapp.player;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.fragment.app.FragmentActivity;
+import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.Tracks;
+import androidx.media3.common.VideoSize;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.source.MediaSource;
+
+import com.truex.referenceapp.ads.LocalHttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hosts PlayerFragment with mocked players and plays 100 ad breaks through its real content ->
+ * pod -> content path (playMediaSource() and onAdBreakComplete(), as AdManager calls them). The
+ * listeners registered on each player, by the fragment and by its PlayerView, must not grow.
+ * With the single timeline the interleaved playlist must be the only thing the player prepares.
+ */
+@UnstableApi
+@RunWith(RobolectricTestRunner.class)
+public class PlayerFragmentTest {
+    private static final int AD_BREAKS = 100;
+
+    private final PlayerFragment.PlayerFactory playerFactory = PlayerFragment.playerFactory;
+    private final boolean useDualPlayer = PlayerFragment.useDualPlayer;
+    private final boolean useSingleTimeline = PlayerFragment.useSingleTimeline;
+    private static final long TIMEOUT_MS = 5000;
+
+    private final List<ExoPlayer> players = new ArrayList<>();
+
+    private ActivityController<FragmentActivity> activityController;
+
+    @Before
+    public void setUp() {
+        PlayerFragment.useSingleTimeline = false;
+        PlayerFragment.playerFactory = builder -> {
+            ExoPlayer player = mockPlayer();
+            players.add(player);
+            return player;
+        };
+    }
+
+    @After
+    public void tearDown() {
+        if (activityController != null) {
+            activityController.destroy();
+        }
+        PlayerFragment.playerFactory = playerFactory;
+        PlayerFragment.useDualPlayer = useDualPlayer;
+        PlayerFragment.useSingleTimeline = useSingleTimeline;
+    }
+
+    @Test
+    public void listenersStayConstantAcrossAdBreaks() {
+        PlayerFragment.useDualPlayer = false;
+        PlayerFragment fragment = startFragment();
+        assertEquals(1, players.size());
+
+        playAdBreaks(fragment);
+
+        // The content stream at startup, then each pod and the content after it
+        verify(players.get(0), times(2 * AD_BREAKS + 1)).prepare();
+    }
+
+    @Test
+    public void listenersStayConstantAcrossAdBreaksOnDualPlayers() {
+        PlayerFragment.useDualPlayer = true;
+        PlayerFragment fragment = startFragment();
+        assertEquals(2, players.size());
+
+        playAdBreaks(fragment);
+
+        // Content keeps its buffer on its own player, each pod prepares on the ad player
+        verify(players.get(0), times(1)).prepare();
+        verify(players.get(1), times(AD_BREAKS)).prepare();
+    }
+
+    @Test
+    public void singleTimelinePreparesOnlyThePlaylist() {
+        PlayerFragment.useSingleTimeline = true;
+        PlayerFragment.useDualPlayer = false;
+        startFragment();
+        ExoPlayer player = players.get(0);
+
+        // Nothing is loaded until the schedule the playlist is built from is known
+        verify(player, never()).setMediaSource(any(MediaSource.class));
+        verify(player, never()).prepare();
+
+        awaitPlaylist(player);
+        verify(player, never()).setMediaSource(any(MediaSource.class));
+        verify(player, times(1)).prepare();
+    }
+
+    private PlayerFragment startFragment() {
+        activityController = Robolectric.buildActivity(FragmentActivity.class).setup();
+        PlayerFragment fragment = new PlayerFragment();
+        activityController.get().getSupportFragmentManager().beginTransaction()
+            .add(android.R.id.content, fragment)
+            .commitNow();
+        return fragment;
+    }
+
+    private void playAdBreaks(PlayerFragment fragment) {
+        MediaSource podSource = mock(MediaSource.class);
+
+        // The first break settles e.g. which player the PlayerView listens to
+        playAdBreak(fragment, podSource);
+        int[] listenerCounts = getListenerCounts();
+        for (int i = 1; i < AD_BREAKS; i++) {
+            playAdBreak(fragment, podSource);
+            assertArrayEquals("ad break " + i, listenerCounts, getListenerCounts());
+        }
+    }
+
+    private static void playAdBreak(PlayerFragment fragment, MediaSource podSource) {
+        fragment.playMediaSource(podSource);
+        fragment.onAdBreakComplete();
+    }
+
+    /**
+     * Run main thread callbacks until the ad schedule has been parsed and the playlist set
+     */
+    private static void awaitPlaylist(ExoPlayer player) {
+        long deadlineMs = System.currentTimeMillis() + TIMEOUT_MS;
+        while (countInvocations(player, "setMediaSources") == 0) {
+            if (System.currentTimeMillis() > deadlineMs) {
+                throw new AssertionError("Timed out waiting for the playlist");
+            }
+            LocalHttpServer.sleep(5);
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        verify(player, times(1)).setMediaSources(anyList());
+    }
+
+    private static int countInvocations(ExoPlayer player, String method) {
+        int count = 0;
+        for (Invocation invocation : Mockito.mockingDetails(player).getInvocations()) {
+            if (invocation.getMethod().getName().equals(method)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Listeners added minus listeners removed, for each player
+     */
+    private int[] getListenerCounts() {
+        int[] counts = new int[players.size()];
+        for (int i = 0; i < players.size(); i++) {
+            counts[i] = countInvocations(players.get(i), "addListener")
+                - countInvocations(players.get(i), "removeListener");
+        }
+        return counts;
+    }
+
+    private static ExoPlayer mockPlayer() {
+        ExoPlayer player = mock(ExoPlayer.class, withSettings().defaultAnswer(RETURNS_MOCKS));
+        // PlayerView only accepts players of the main thread
+        when(player.getApplicationLooper()).thenReturn(Looper.getMainLooper());
+        // What PlayerView reads from its player, the empty values of a player that has no media yet
+        when(player.getAvailableCommands()).thenReturn(Player.Commands.EMPTY);
+        when(player.getCurrentTimeline()).thenReturn(Timeline.EMPTY);
+        when(player.getCurrentTracks()).thenReturn(Tracks.EMPTY);
+        when(player.getVideoSize()).thenReturn(VideoSize.UNKNOWN);
+        // The content stays loaded on its player while a pod plays on the ad player
+        when(player.getMediaItemCount()).thenReturn(1);
+        return player;
+    }
+}
@@ -0,0 +1,180 @@
+package com.truex.referenceapp.vast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.truex.referenceapp.ads.LocalHttpServer;
+import com.truex.referenceapp.metrics.PlaybackMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Fills a VastAdPool from a loopback ad server and checks that every true[X] ad of a response is
+ * pooled, that failed fetches back off exponentially and then give up, that the pool refills when
+ * its ads expire, and that pre-fetching stops once the last client stops.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class VastAdPoolTest {
+    private static final String AD_PATH = "/vast.xml";
+    private static final long TIMEOUT_MS = 5000;
+
+    private final int targetSize = VastAdPool.targetSize;
+    private final long adTtlMs = VastAdPool.adTtlMs;
+    private final long retryDelayMs = VastAdPool.retryDelayMs;
+    private final long maxRetryDelayMs = VastAdPool.maxRetryDelayMs;
+    private final int maxRetries = VastAdPool.maxRetries;
+
+    private volatile int responseStatus = 200;
+    private LocalHttpServer server;
+    private VastAdPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        PlaybackMetrics.getInstance().reset();
+        VastWrapperResolver.getInstance().clearCache();
+        server = new LocalHttpServer(this::serveAds);
+        pool = new VastAdPool();
+        VastAdPool.targetSize = 2;
+    }
+
+    @After
+    public void tearDown() {
+        pool.stop();
+        VastAdPool.targetSize = targetSize;
+        VastAdPool.adTtlMs = adTtlMs;
+        VastAdPool.retryDelayMs = retryDelayMs;
+        VastAdPool.maxRetryDelayMs = maxRetryDelayMs;
+        VastAdPool.maxRetries = maxRetries;
+        server.close();
+    }
+
+    @Test
+    public void everyTruexAdInTheResponseIsPooled() {
+        pool.start(() -> server.url(AD_PATH));
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL, 2);
+
+        assertEquals(2, pool.getReadyCount());
+        assertEquals(1, server.getRequestCount(AD_PATH));
+        assertNotNull(pool.acquire());
+        assertNotNull(pool.acquire());
+    }
+
+    @Test
+    public void failedFetchesBackOffThenGiveUp() {
+        responseStatus = 404;
+        VastAdPool.retryDelayMs = 1000;
+        VastAdPool.maxRetryDelayMs = 4000;
+        VastAdPool.maxRetries = 3;
+
+        pool.start(() -> server.url(AD_PATH));
+        long[] expectedDelaysMs = {1000, 2000, 4000};
+        for (int i = 0; i < expectedDelaysMs.length; i++) {
+            awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED, i + 1);
+            assertEquals(expectedDelaysMs[i], getNextFillDelayMs());
+            mainLooper().idleFor(Duration.ofMillis(expectedDelaysMs[i]));
+        }
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED, 4);
+
+        // Nothing left scheduled after maxRetries retries
+        assertEquals(Duration.ZERO, mainLooper().getNextScheduledTaskTime());
+        assertEquals(4, server.getRequestCount(AD_PATH));
+
+        // Until the user asks for an ad again
+        pool.acquire();
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED, 5);
+        assertEquals(5, server.getRequestCount(AD_PATH));
+    }
+
+    @Test
+    public void poolRefillsWhenItsAdsExpire() {
+        VastAdPool.adTtlMs = 60_000;
+
+        pool.start(() -> server.url(AD_PATH));
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL, 2);
+        assertEquals(VastAdPool.adTtlMs, getNextFillDelayMs());
+
+        mainLooper().idleFor(Duration.ofMillis(VastAdPool.adTtlMs));
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL, 4);
+
+        assertEquals(2, PlaybackMetrics.getInstance().getCount(PlaybackMetrics.Counter.VAST_POOL_STALE));
+        assertEquals(2, pool.getReadyCount());
+        assertEquals(2, server.getRequestCount(AD_PATH));
+    }
+
+    @Test
+    public void stopCancelsScheduledFillsOnceTheLastClientStops() {
+        responseStatus = 404;
+
+        pool.start(() -> server.url(AD_PATH));
+        pool.start(() -> server.url(AD_PATH));
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED, 1);
+
+        pool.stop();
+        assertEquals(VastAdPool.retryDelayMs, getNextFillDelayMs());
+
+        pool.stop();
+        assertEquals(Duration.ZERO, mainLooper().getNextScheduledTaskTime());
+        assertEquals(1, server.getRequestCount(AD_PATH));
+
+        // An unpaired stop is ignored
+        pool.stop();
+        pool.start(() -> server.url(AD_PATH));
+        awaitCount(PlaybackMetrics.Counter.VAST_POOL_FILL_FAILED, 2);
+        assertEquals(VastAdPool.retryDelayMs, getNextFillDelayMs());
+    }
+
+    private static ShadowLooper mainLooper() {
+        return shadowOf(Looper.getMainLooper());
+    }
+
+    private static long getNextFillDelayMs() {
+        return mainLooper().getNextScheduledTaskTime().toMillis() - SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Run main thread callbacks until the counter reaches the count
+     */
+    private static void awaitCount(PlaybackMetrics.Counter counter, long count) {
+        long deadlineMs = System.currentTimeMillis() + TIMEOUT_MS;
+        while (PlaybackMetrics.getInstance().getCount(counter) < count) {
+            if (System.currentTimeMillis() > deadlineMs) {
+                throw new AssertionError("Timed out waiting for " + counter);
+            }
+            LocalHttpServer.sleep(5);
+            mainLooper().idle();
+        }
+        assertEquals(count, PlaybackMetrics.getInstance().getCount(counter));
+    }
+
+    private void serveAds(HttpExchange exchange) throws IOException {
+        if (responseStatus != 200) {
+            LocalHttpServer.respond(exchange, responseStatus, null);
+            return;
+        }
+        String body = "<VAST version=\"4.0\">"
+            + truexAd("truex-1", 1) + truexAd("truex-2", 2)
+            + "<Ad id=\"other\" sequence=\"3\"><InLine><AdSystem>GDFP</AdSystem></InLine></Ad>"
+            + "</VAST>";
+        LocalHttpServer.respond(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String truexAd(String id, int sequence) {
+        return "<Ad id=\"" + id + "\" sequence=\"" + sequence + "\"><InLine><AdSystem>trueX</AdSystem>"
+            + "<Creatives><Creative><Linear><AdParameters><![CDATA[{\"vast_config_url\":\"https://example.com\"}]]>"
+            + "</AdParameters></Linear></Creative></Creatives></InLine></Ad>";
+    }
+}
@@ -0,0 +1,95 @@
+package com.truex.referenceapp.vast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.truex.referenceapp.ads.LocalHttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resolves a wrapper chain served by a loopback ad server twice and checks that only the Wrapper
+ * hop is answered from the hop cache, while the terminal InLine response is fetched every time.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class VastWrapperResolverTest {
+    private static final String WRAPPER_PATH = "/wrapper.xml";
+    private static final String INLINE_PATH = "/inline.xml";
+    private static final String EMPTY_PATH = "/empty.xml";
+
+    private LocalHttpServer server;
+    private VastWrapperResolver resolver;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new LocalHttpServer(this::serve);
+        resolver = VastWrapperResolver.getInstance();
+        resolver.clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        resolver.clearCache();
+        server.close();
+    }
+
+    @Test
+    public void onlyWrapperHopsAreCached() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            List<VastAd> ads = resolver.resolve(rootDocument(WRAPPER_PATH)).getAds();
+            assertEquals(1, ads.size());
+            assertEquals("inline-ad", ads.get(0).getId());
+            assertFalse(ads.get(0).isWrapper());
+        }
+
+        assertEquals(1, server.getRequestCount(WRAPPER_PATH));
+        assertEquals(2, server.getRequestCount(INLINE_PATH));
+    }
+
+    @Test
+    public void emptyResponsesAreNotCached() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, resolver.resolve(rootDocument(EMPTY_PATH)).getAds().size());
+        }
+
+        assertEquals(2, server.getRequestCount(EMPTY_PATH));
+    }
+
+    private VastDocument rootDocument(String path) {
+        VastAd wrapper = new VastAd("root-wrapper", 1, "Test", true, server.url(path), Collections.emptyList());
+        return new VastDocument("4.0", Collections.singletonList(wrapper));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String body;
+        switch (exchange.getRequestURI().getPath()) {
+            case WRAPPER_PATH:
+                body = "<VAST version=\"4.0\"><Ad id=\"wrapper-ad\"><Wrapper><AdSystem>Test</AdSystem>"
+                    + "<VASTAdTagURI><![CDATA[" + server.url(INLINE_PATH) + "]]></VASTAdTagURI>"
+                    + "</Wrapper></Ad></VAST>";
+                break;
+            case INLINE_PATH:
+                body = "<VAST version=\"4.0\"><Ad id=\"inline-ad\"><InLine><AdSystem>Test</AdSystem>"
+                    + "<Impression><![CDATA[https://example.com/impression]]></Impression>"
+                    + "</InLine></Ad></VAST>";
+                break;
+            case EMPTY_PATH:
+                body = "<VAST version=\"4.0\"></VAST>";
+                break;
+            default:
+                LocalHttpServer.respond(exchange, 404, null);
+                return;
+        }
+        LocalHttpServer.respond(exchange, 200, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
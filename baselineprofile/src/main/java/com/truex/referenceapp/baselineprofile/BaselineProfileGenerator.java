@@ -0,0 +1,53 @@
+package com.truex.referenceapp.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the baseline profile of the app's startup and first preroll, for the flavor under test.
+ *
+ * Run on a connected device or emulator, API 28+, e.g.
+ *
+ *   ./gradlew :ReferenceApp:generatePhoneReleaseBaselineProfile
+ *   ./gradlew :ReferenceApp:generateTvReleaseBaselineProfile
+ *
+ * The profiles are written to ReferenceApp/src/<flavor>Release/generated/baselineProfiles and are
+ * checked in. Startup is also written as a startup profile, which R8 uses to lay out the dex files.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+    private static final int MAX_ITERATIONS = 15;
+    private static final int STABLE_ITERATIONS = 3;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void startup() {
+        baselineProfileRule.collect(PlaybackJourney.PACKAGE_NAME, MAX_ITERATIONS, STABLE_ITERATIONS,
+            "startup", /* includeInStartupProfile */ true, /* strictStability */ false, className -> true,
+            scope -> {
+                scope.pressHome();
+                PlaybackJourney.startApp(scope);
+                return Unit.INSTANCE;
+            });
+    }
+
+    @Test
+    public void preroll() {
+        baselineProfileRule.collect(PlaybackJourney.PACKAGE_NAME, MAX_ITERATIONS, STABLE_ITERATIONS,
+            "preroll", /* includeInStartupProfile */ false, /* strictStability */ false, className -> true,
+            scope -> {
+                scope.pressHome();
+                PlaybackJourney.startApp(scope);
+                PlaybackJourney.playPreroll(scope);
+                return Unit.INSTANCE;
+            });
+    }
+}
@@ -0,0 +1,47 @@
+package com.truex.referenceapp.baselineprofile;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * The user journey the baseline profile covers:
+ *   MainActivity -> DetailFragment -> PlayerFragment -> first preroll (including an interactive ad)
+ */
+final class PlaybackJourney {
+    static final String PACKAGE_NAME = "com.truex.referenceapp";
+
+    private static final long UI_TIMEOUT_MS = 10 * 1000;
+    // The interactive ad loads its creative from the network
+    private static final long AD_TIMEOUT_MS = 30 * 1000;
+
+    private PlaybackJourney() {
+    }
+
+    /**
+     * Launch the app and wait for the DetailFragment
+     */
+    static void startApp(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        scope.getDevice().wait(Until.hasObject(By.res(PACKAGE_NAME, "playbackButton")), UI_TIMEOUT_MS);
+    }
+
+    /**
+     * Open the player from the DetailFragment and play until the preroll's interactive ad shows
+     */
+    static void playPreroll(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        UiObject2 playbackButton = device.findObject(By.res(PACKAGE_NAME, "playbackButton"));
+        if (playbackButton == null) {
+            throw new IllegalStateException("DetailFragment is not showing");
+        }
+        playbackButton.click();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "player_view")), UI_TIMEOUT_MS);
+
+        // The true[X] ad renderer shows the interactive ad in a WebView
+        device.wait(Until.hasObject(By.clazz("android.webkit.WebView")), AD_TIMEOUT_MS);
+        device.pressBack();
+    }
+}
@@ -0,0 +1,58 @@
+package com.truex.referenceapp.baselineprofile;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures cold startup to the DetailFragment without any ahead-of-time compilation and with the
+ * baseline profile, for the flavor under test. The difference is what the profile buys.
+ *
+ * Run on a connected device or emulator, API 28+, e.g.
+ *
+ *   ./gradlew :baselineprofile:connectedPhoneBenchmarkReleaseAndroidTest
+ *   ./gradlew :baselineprofile:connectedTvBenchmarkReleaseAndroidTest
+ *
+ * Results are in baselineprofile/build/outputs/connected_android_test_additional_output.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        startup(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(PlaybackJourney.PACKAGE_NAME,
+            Collections.singletonList(new StartupTimingMetric()), compilationMode, StartupMode.COLD, ITERATIONS,
+            scope -> {
+                scope.pressHome();
+                return Unit.INSTANCE;
+            },
+            scope -> {
+                PlaybackJourney.startApp(scope);
+                return Unit.INSTANCE;
+            });
+    }
+}